@@ -0,0 +1,61 @@
+package com.elearning.e_hub.common.dto;
+
+import com.elearning.e_hub.common.entity.Role;
+import com.elearning.e_hub.common.entity.Status;
+import com.elearning.e_hub.module.user.dto.UserDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Serialize body response như MappingJackson2HttpMessageConverter: một user và một trang 20 user.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ApiResponseSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private ApiResponse<UserDto> single;
+    private ApiResponse<Page<UserDto>> page;
+
+    @Setup
+    public void setup() {
+        // Cùng cấu hình mặc định Spring Boot dùng (JavaTimeModule, bỏ FAIL_ON_EMPTY_BEANS...)
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        single = new ApiResponse<>("SUCCESS", "Lấy thông tin người dùng thành công", user(1));
+        List<UserDto> users = IntStream.rangeClosed(1, 20).mapToObj(ApiResponseSerializationBenchmark::user).toList();
+        page = new ApiResponse<>("SUCCESS", "Lấy danh sách người dùng thành công",
+                new PageImpl<>(users, PageRequest.of(0, 20), 1_000_000));
+    }
+
+    @Benchmark
+    public byte[] singleUser() throws Exception {
+        return objectMapper.writeValueAsBytes(single);
+    }
+
+    @Benchmark
+    public byte[] userPage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    private static UserDto user(int i) {
+        LocalDateTime now = LocalDateTime.now();
+        return new UserDto((long) i, "Nguyễn Văn " + i, "user" + i + "@ehub.vn", Role.USER, Status.ACTIVE,
+                now, "https://cdn.ehub.vn/avatar/" + i + ".png", "Giới thiệu " + i, now.minusDays(30), now);
+    }
+}
@@ -0,0 +1,68 @@
+package com.elearning.e_hub.module.auth.service.impl;
+
+import com.elearning.e_hub.common.entity.Role;
+import com.elearning.e_hub.common.entity.Status;
+import com.elearning.e_hub.module.user.entity.User;
+import com.elearning.e_hub.security.CustomUserDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phát hành và xác thực access token: ký HMAC, parse + verify chữ ký, đọc claims.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JwtServiceBenchmark {
+
+    private JwtServiceImpl jwtService;
+    private User user;
+    private CustomUserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtService = new JwtServiceImpl();
+        ReflectionTestUtils.setField(jwtService, "jwtSecret", "be55a54bc6fe880334015c5c58bcbc5197060ebc9706fa9110f9af72245b66d8");
+        ReflectionTestUtils.setField(jwtService, "accessTokenTTL", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "refreshTokenTTL", 604_800_000L);
+        jwtService.init();
+
+        user = new User();
+        user.setId(42L);
+        user.setEmail("benchmark@ehub.vn");
+        user.setFullName("Benchmark User");
+        user.setRole(Role.USER);
+        user.setStatus(Status.ACTIVE);
+        userDetails = new CustomUserDetails(user);
+        token = jwtService.generateToken(user, 1001L);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(user, 1001L);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token, userDetails);
+    }
+
+    @Benchmark
+    public Object verifyToken() {
+        return jwtService.verifyToken(token);
+    }
+}
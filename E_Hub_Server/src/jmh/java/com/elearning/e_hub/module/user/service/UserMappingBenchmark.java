@@ -0,0 +1,56 @@
+package com.elearning.e_hub.module.user.service;
+
+import com.elearning.e_hub.common.entity.Role;
+import com.elearning.e_hub.common.entity.Status;
+import com.elearning.e_hub.module.user.dto.UserDto;
+import com.elearning.e_hub.module.user.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserServiceImpl.mapToDto (private) gọi qua MethodHandle để chi phí gọi gần với gọi trực tiếp.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserMappingBenchmark {
+
+    private UserServiceImpl userService;
+    private MethodHandle mapToDto;
+    private User user;
+
+    @Setup
+    public void setup() throws Exception {
+        userService = new UserServiceImpl(null, null, null, null, null);
+        mapToDto = MethodHandles.privateLookupIn(UserServiceImpl.class, MethodHandles.lookup())
+                .findVirtual(UserServiceImpl.class, "mapToDto", MethodType.methodType(UserDto.class, User.class));
+
+        user = new User();
+        user.setId(42L);
+        user.setFullName("Nguyễn Văn Benchmark");
+        user.setEmail("benchmark@ehub.vn");
+        user.setRole(Role.USER);
+        user.setStatus(Status.ACTIVE);
+        user.setLastLoginAt(LocalDateTime.now());
+        user.setAvatarUrl("https://cdn.ehub.vn/avatar/42.png");
+        user.setBio("Giới thiệu ngắn về người dùng benchmark.");
+        user.setCreatedAt(LocalDateTime.now().minusDays(30));
+        user.setUpdatedAt(LocalDateTime.now());
+    }
+
+    @Benchmark
+    public UserDto mapToDto() throws Throwable {
+        return (UserDto) mapToDto.invokeExact(userService, user);
+    }
+}
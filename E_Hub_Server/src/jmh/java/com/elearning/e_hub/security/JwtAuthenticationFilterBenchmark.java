@@ -0,0 +1,91 @@
+package com.elearning.e_hub.security;
+
+import com.elearning.e_hub.common.entity.Role;
+import com.elearning.e_hub.common.entity.Status;
+import com.elearning.e_hub.common.metrics.ExecutionMetrics;
+import com.elearning.e_hub.module.auth.service.JwtService;
+import com.elearning.e_hub.module.auth.service.impl.JwtServiceImpl;
+import com.elearning.e_hub.module.user.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Toàn bộ doFilterInternal cho một request có Bearer token hợp lệ.
+ * statelessPrincipal=false đi qua loadPrincipal (được mock) thay vì dựng principal từ claims.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean statelessPrincipal;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+
+    @Setup
+    public void setup() throws Exception {
+        JwtServiceImpl jwtService = new JwtServiceImpl();
+        ReflectionTestUtils.setField(jwtService, "jwtSecret", "be55a54bc6fe880334015c5c58bcbc5197060ebc9706fa9110f9af72245b66d8");
+        ReflectionTestUtils.setField(jwtService, "accessTokenTTL", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "refreshTokenTTL", 604_800_000L);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+
+        User user = new User();
+        user.setId(42L);
+        user.setEmail("benchmark@ehub.vn");
+        user.setRole(Role.USER);
+        user.setStatus(Status.ACTIVE);
+        String token = jwtService.generateToken(user, 1001L);
+
+        // stubOnly: mock không ghi lại từng lời gọi, tránh đo nhầm chi phí của Mockito
+        UserDetailsServiceImpl userDetailsService = Mockito.mock(UserDetailsServiceImpl.class, Mockito.withSettings().stubOnly());
+        Mockito.when(userDetailsService.loadPrincipal("benchmark@ehub.vn"))
+                .thenReturn(new UserPrincipal(42L, "benchmark@ehub.vn", Role.USER, Status.ACTIVE));
+        // Mock trả về false cho isRevoked: nhánh phổ biến (session chưa bị thu hồi)
+        SessionRevocationRegistry revocationRegistry = Mockito.mock(SessionRevocationRegistry.class, Mockito.withSettings().stubOnly());
+
+        ExecutionMetrics executionMetrics = new ExecutionMetrics(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(executionMetrics, "slowThresholdMillis", Long.MAX_VALUE / 1_000_000);
+
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtService", (JwtService) jwtService);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "revocationRegistry", revocationRegistry);
+        ReflectionTestUtils.setField(filter, "executionMetrics", executionMetrics);
+        ReflectionTestUtils.setField(filter, "statelessPrincipal", statelessPrincipal);
+
+        request = new MockHttpServletRequest("GET", "/api/v1/users/me");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+        chain = (req, res) -> { };
+    }
+
+    @Benchmark
+    public Object doFilterInternal() throws Exception {
+        try {
+            filter.doFilterInternal(request, response, chain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
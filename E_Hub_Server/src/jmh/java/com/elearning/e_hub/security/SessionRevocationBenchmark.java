@@ -0,0 +1,58 @@
+package com.elearning.e_hub.security;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kiểm tra thu hồi session trên mỗi request: 100k session đã thu hồi, tra một session chưa thu hồi
+ * (nhánh phổ biến, Bloom filter trả lời) và một session đã thu hồi.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SessionRevocationBenchmark {
+
+    private static final int REVOKED = 100_000;
+
+    private SessionRevocationRegistry registry;
+    private long probe;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        registry = new SessionRevocationRegistry(Mockito.mock(RedisTemplate.class), Mockito.mock(RedisMessageListenerContainer.class));
+        // Không gọi init() vì init nạp snapshot từ Redis; dựng Bloom filter trực tiếp
+        ReflectionTestUtils.setField(registry, "bloomFilter", new SessionBloomFilter(REVOKED, 0.01));
+        long expireAt = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+        for (long id = 1; id <= REVOKED; id++) {
+            byte[] body = (id + ":" + expireAt).getBytes(StandardCharsets.UTF_8);
+            registry.onMessage(new DefaultMessage("session:revoked".getBytes(StandardCharsets.UTF_8), body), null);
+        }
+    }
+
+    @Benchmark
+    public boolean activeSession() {
+        // Id ngoài tập đã thu hồi, đổi mỗi lần để không luôn trúng cùng một ô Bloom filter
+        probe = probe + 1 & 0xFFFFF;
+        return registry.isRevoked(REVOKED + 1 + probe);
+    }
+
+    @Benchmark
+    public boolean revokedSession() {
+        probe = probe + 1 & 0xFFFF;
+        return registry.isRevoked(1 + probe);
+    }
+}
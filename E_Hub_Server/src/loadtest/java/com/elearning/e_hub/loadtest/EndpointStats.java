@@ -0,0 +1,71 @@
+package com.elearning.e_hub.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Độ trễ (micro giây, 3 chữ số có nghĩa) và số lỗi của một endpoint, ghi đồng thời từ nhiều virtual user.
+ */
+final class EndpointStats {
+
+    private final String name;
+    private final Histogram histogram = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong maxSqlStatements = new AtomicLong(-1);
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    void record(long startNanos, boolean success) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        histogram.recordValue(Math.min(micros, histogram.getHighestTrackableValue()));
+        if (!success) {
+            errors.incrementAndGet();
+        }
+    }
+
+    // Giá trị header X-SQL-Statement-Count của response
+    void recordSqlStatements(long statements) {
+        maxSqlStatements.accumulateAndGet(statements, Math::max);
+    }
+
+    void reset() {
+        histogram.reset();
+        errors.set(0);
+        maxSqlStatements.set(-1);
+    }
+
+    long count() {
+        return histogram.getTotalCount();
+    }
+
+    long errors() {
+        return errors.get();
+    }
+
+    double errorRate() {
+        long count = count();
+        return count == 0 ? 0 : (double) errors.get() / count;
+    }
+
+    double percentileMillis(double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000d;
+    }
+
+    // -1 khi chưa nhận được header nào
+    long maxSqlStatements() {
+        return maxSqlStatements.get();
+    }
+
+    double maxMillis() {
+        return histogram.getMaxValue() / 1000d;
+    }
+}
@@ -0,0 +1,123 @@
+package com.elearning.e_hub.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Proxy TCP thêm độ trễ mạng giả lập giữa ứng dụng và DB/Redis chạy cùng máy.
+ * Mỗi đoạn dữ liệu từ client được chuyển tới server sau đúng latency kể từ lúc đọc được, qua hàng đợi nên
+ * nhiều request pipeline trên cùng một kết nối (Lettuce) chỉ bị trễ chứ không bị xếp hàng nối tiếp.
+ * Chiều trả về đi thẳng: latency là độ trễ round-trip cộng thêm cho mỗi request.
+ */
+final class LatencyProxy implements AutoCloseable {
+
+    private static final byte[] END = new byte[0];
+
+    private final int targetPort;
+    private final long latencyNanos;
+    private final ServerSocket serverSocket;
+
+    LatencyProxy(int targetPort, long latencyMillis) {
+        this.targetPort = targetPort;
+        this.latencyNanos = TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+        try {
+            this.serverSocket = new ServerSocket(0, 512, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Thread.ofPlatform().daemon().name("latency-proxy-" + targetPort).start(this::acceptLoop);
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                Socket server = new Socket(InetAddress.getLoopbackAddress(), targetPort);
+                client.setTcpNoDelay(true);
+                server.setTcpNoDelay(true);
+                startDelayed(client, server);
+                Thread.ofVirtual().start(() -> pipe(server, client));
+            } catch (IOException e) {
+                // Proxy đã đóng hoặc không kết nối được tới đích: bỏ kết nối này
+            }
+        }
+    }
+
+    private void startDelayed(Socket from, Socket to) {
+        BlockingQueue<Chunk> queue = new LinkedBlockingQueue<>();
+        Thread.ofVirtual().start(() -> {
+            byte[] buffer = new byte[16 * 1024];
+            try (InputStream in = from.getInputStream()) {
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    queue.add(new Chunk(System.nanoTime() + latencyNanos, Arrays.copyOf(buffer, read)));
+                }
+            } catch (IOException ignored) {
+                // Kết nối đóng
+            }
+            queue.add(new Chunk(0, END));
+        });
+        Thread.ofVirtual().start(() -> {
+            try (OutputStream out = to.getOutputStream()) {
+                while (true) {
+                    Chunk chunk = queue.take();
+                    if (chunk.data == END) {
+                        break;
+                    }
+                    long wait;
+                    while ((wait = chunk.deliverAt - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    out.write(chunk.data);
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException ignored) {
+                // Kết nối đóng
+            } finally {
+                closeQuietly(from);
+                closeQuietly(to);
+            }
+        });
+    }
+
+    private static void pipe(Socket from, Socket to) {
+        try (InputStream in = from.getInputStream(); OutputStream out = to.getOutputStream()) {
+            in.transferTo(out);
+        } catch (IOException ignored) {
+            // Kết nối đóng
+        } finally {
+            closeQuietly(from);
+            closeQuietly(to);
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // Đã đóng
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    private record Chunk(long deliverAt, byte[] data) {
+    }
+}
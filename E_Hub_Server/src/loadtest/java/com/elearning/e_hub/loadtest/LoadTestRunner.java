@@ -0,0 +1,415 @@
+package com.elearning.e_hub.loadtest;
+
+import com.elearning.e_hub.EHubApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.h2.tools.Server;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Load test end-to-end trong một process: Redis nhúng + ứng dụng thật trên H2, gọi qua HTTP.
+ *
+ * Kịch bản:
+ * 1. Mỗi virtual user đăng ký một tài khoản (đo "signup"); thêm một tài khoản admin.
+ * 2. Pha warmup rồi pha đo, mỗi virtual user lặp liên tục (closed model, không think time)
+ *    theo tỉ trọng: /users/me 60%, refresh 15%, admin list 15%, login 10%.
+ * 3. In p50/p95/p99/max, throughput và số câu SQL lớn nhất (header X-SQL-Statement-Count) theo endpoint,
+ *    so với ngân sách và thoát 1 nếu vượt.
+ *
+ * Tham số (--key=value): users, duration, warmup (giây), bcrypt-cost, virtual-threads, budget (đường dẫn file),
+ * replica (true: bật định tuyến đọc/ghi với một pool "replica" trỏ vào cùng DB H2, in số kết nối theo đích),
+ * db-latency / redis-latency (ms round-trip cộng thêm qua LatencyProxy; DB khi đó là H2 chạy chế độ TCP),
+ * tomcat-threads, db-pool-size (ghi đè server.tomcat.threads.max và maximum-pool-size của Hikari).
+ * So sánh platform/virtual thread: chạy hai lần cùng tham số, chỉ đổi --virtual-threads.
+ */
+public final class LoadTestRunner {
+
+    private static final String PASSWORD = "LoadTest@2024";
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String SQL_STATEMENT_HEADER = "X-SQL-Statement-Count";
+    private static final String H2_URL = "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1";
+
+    private final Map<String, String> options;
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+    private HttpClient client;
+    private String baseUrl;
+    private String dbUrl = H2_URL;
+
+    private LoadTestRunner(Map<String, String> options) {
+        this.options = options;
+        for (String endpoint : List.of("signup", "login", "refresh", "me", "admin-list")) {
+            stats.put(endpoint, new EndpointStats(endpoint));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        int exitCode = new LoadTestRunner(options).run();
+        System.exit(exitCode);
+    }
+
+    private int run() throws Exception {
+        int users = intOption("users", 50);
+        int warmup = intOption("warmup", 10);
+        int duration = intOption("duration", 30);
+        boolean virtualThreads = Boolean.parseBoolean(options.getOrDefault("virtual-threads", "false"));
+        boolean replica = Boolean.parseBoolean(options.getOrDefault("replica", "false"));
+
+        int dbLatency = intOption("db-latency", 0);
+        int redisLatency = intOption("redis-latency", 0);
+
+        int redisPort = freePort();
+        RedisServer redis = new RedisServer(redisPort);
+        redis.start();
+        List<AutoCloseable> proxies = new ArrayList<>();
+        Server h2Server = null;
+        ConfigurableApplicationContext app = null;
+        try {
+            int appRedisPort = redisPort;
+            if (redisLatency > 0) {
+                LatencyProxy proxy = new LatencyProxy(redisPort, redisLatency);
+                proxies.add(proxy);
+                appRedisPort = proxy.port();
+            }
+            if (dbLatency > 0) {
+                // H2 trong bộ nhớ không đi qua mạng: mở TCP server để có chỗ chèn độ trễ
+                h2Server = Server.createTcpServer("-tcpPort", String.valueOf(freePort()), "-ifNotExists").start();
+                LatencyProxy proxy = new LatencyProxy(h2Server.getPort(), dbLatency);
+                proxies.add(proxy);
+                dbUrl = "jdbc:h2:tcp://localhost:" + proxy.port() + "/mem:loadtest;DB_CLOSE_DELAY=-1";
+            }
+            app = new SpringApplicationBuilder(EHubApplication.class)
+                    .run(commandLineArgs(appRedisPort, virtualThreads, replica));
+            baseUrl = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+            client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+
+            System.out.printf("Load test: %d virtual user, warmup %ds, đo %ds, bcrypt cost %s, virtual threads %s%n",
+                    users, warmup, duration, options.getOrDefault("bcrypt-cost", "10"), virtualThreads);
+            if (dbLatency > 0 || redisLatency > 0) {
+                System.out.printf("Độ trễ chèn thêm: DB %d ms, Redis %d ms; tomcat threads %s, pool DB %s%n",
+                        dbLatency, redisLatency, options.getOrDefault("tomcat-threads", "200"),
+                        options.getOrDefault("db-pool-size", "10"));
+            }
+
+            List<VirtualUser> virtualUsers = signupAll(users);
+            VirtualUser admin = createAdmin(app.getBean(JdbcTemplate.class));
+
+            runMix(virtualUsers, admin, warmup);
+            stats.values().stream().filter(s -> !s.getName().equals("signup")).forEach(EndpointStats::reset);
+            runMix(virtualUsers, admin, duration);
+
+            report(duration);
+            if (replica) {
+                reportRouting(app.getBean(MeterRegistry.class));
+            }
+            List<String> violations = checkBudget(duration);
+            if (violations.isEmpty()) {
+                System.out.println("Đạt toàn bộ ngân sách.");
+                return 0;
+            }
+            System.out.println("VƯỢT NGÂN SÁCH:");
+            violations.forEach(v -> System.out.println("  - " + v));
+            return 1;
+        } finally {
+            if (app != null) {
+                app.close();
+            }
+            for (AutoCloseable proxy : proxies) {
+                proxy.close();
+            }
+            if (h2Server != null) {
+                h2Server.stop();
+            }
+            redis.stop();
+        }
+    }
+
+    /**
+     * Truyền cấu hình dưới dạng tham số dòng lệnh để ghi đè application.yml
+     * (SpringApplicationBuilder.properties() chỉ là giá trị mặc định, bị application.yml ghi đè).
+     */
+    private String[] commandLineArgs(int redisPort, boolean virtualThreads, boolean replica) {
+        return applicationProperties(redisPort, virtualThreads, replica).entrySet().stream()
+                .map(e -> "--" + e.getKey() + "=" + e.getValue())
+                .toArray(String[]::new);
+    }
+
+    private Map<String, Object> applicationProperties(int redisPort, boolean virtualThreads, boolean replica) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.datasource.url", dbUrl);
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        properties.put("spring.jpa.show-sql", false);
+        properties.put("spring.jpa.properties.hibernate.format_sql", false);
+        properties.put("spring.data.redis.host", "localhost");
+        properties.put("spring.data.redis.port", redisPort);
+        properties.put("spring.threads.virtual.enabled", virtualThreads);
+        properties.put("security.password.bcrypt-cost", intOption("bcrypt-cost", 10));
+        // Mọi request đến từ 127.0.0.1 và login lặp lại cùng email: nới giới hạn để đo đường xử lý, không đo throttle
+        properties.put("security.login-throttle.email-limit", Integer.MAX_VALUE);
+        properties.put("security.login-throttle.ip-limit", Integer.MAX_VALUE);
+        properties.put("metrics.sql.response-header", true);
+        properties.put("logging.level.root", "WARN");
+        if (options.containsKey("tomcat-threads")) {
+            properties.put("server.tomcat.threads.max", intOption("tomcat-threads", 200));
+        }
+        if (options.containsKey("db-pool-size")) {
+            properties.put("spring.datasource.hikari.maximum-pool-size", intOption("db-pool-size", 10));
+        }
+        if (replica) {
+            // Replica không trễ: đo chi phí định tuyến và kiểm tra đường đi của kết nối, không đo replication
+            properties.put("datasource.routing.enabled", true);
+            properties.put("datasource.routing.replica-urls", options.getOrDefault("replica-url", dbUrl));
+            properties.put("datasource.routing.max-lag", 0);
+        }
+        return properties;
+    }
+
+    private List<VirtualUser> signupAll(int users) throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<VirtualUser>> futures = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                String email = "loadtest" + i + "@ehub.vn";
+                futures.add(executor.submit(() -> signup(email, "Load Test " + email)));
+            }
+            List<VirtualUser> result = new ArrayList<>();
+            for (Future<VirtualUser> future : futures) {
+                VirtualUser user = future.get();
+                if (user != null) {
+                    result.add(user);
+                }
+            }
+            if (result.isEmpty()) {
+                throw new IllegalStateException("Không đăng ký được virtual user nào");
+            }
+            return result;
+        }
+    }
+
+    private VirtualUser signup(String email, String fullName) throws IOException, InterruptedException {
+        String body = JSON.writeValueAsString(Map.of("email", email, "password", PASSWORD, "fullName", fullName));
+        JsonNode data = call("signup", post("/api/v1/auth/signup", body, null));
+        return data == null ? null : new VirtualUser(email, data);
+    }
+
+    // Tài khoản admin cho endpoint danh sách: đăng ký, nâng quyền trực tiếp trong DB rồi đăng nhập lại để token mang role mới
+    private VirtualUser createAdmin(JdbcTemplate jdbcTemplate) throws IOException, InterruptedException {
+        VirtualUser admin = signup("loadtest-admin@ehub.vn", "Load Test Admin");
+        jdbcTemplate.update("UPDATE users SET role = 'ADMIN' WHERE email = ?", admin.email);
+        login(admin);
+        return admin;
+    }
+
+    private void runMix(List<VirtualUser> users, VirtualUser admin, int seconds) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (VirtualUser user : users) {
+                futures.add(executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        step(user, admin);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+    }
+
+    private void step(VirtualUser user, VirtualUser admin) throws IOException, InterruptedException {
+        int roll = ThreadLocalRandom.current().nextInt(100);
+        if (roll < 60) {
+            call("me", get("/api/v1/users/me", user.accessToken));
+        } else if (roll < 75) {
+            refresh(user);
+        } else if (roll < 90) {
+            call("admin-list", get("/api/v1/users?page=0&size=20", admin.accessToken));
+        } else {
+            login(user);
+        }
+    }
+
+    private void login(VirtualUser user) throws IOException, InterruptedException {
+        String body = JSON.writeValueAsString(Map.of("email", user.email, "password", PASSWORD));
+        JsonNode data = call("login", post("/api/v1/auth/login", body, null));
+        if (data != null) {
+            user.update(data);
+        }
+    }
+
+    // Refresh token xoay vòng: mỗi virtual user chạy tuần tự trên một thread nên luôn dùng token mới nhất
+    private void refresh(VirtualUser user) throws IOException, InterruptedException {
+        String query = "?refreshToken=" + URLEncoder.encode(user.refreshToken, StandardCharsets.UTF_8);
+        JsonNode data = call("refresh", post("/api/v1/auth/refresh" + query, "", null));
+        if (data != null) {
+            user.update(data);
+        }
+    }
+
+    private HttpRequest get(String path, String accessToken) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + accessToken)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, String body, String accessToken) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (accessToken != null) {
+            builder.header("Authorization", "Bearer " + accessToken);
+        }
+        return builder.build();
+    }
+
+    // Trả về trường data của ApiResponse khi 2xx, null khi lỗi (đã được đếm)
+    private JsonNode call(String endpoint, HttpRequest request) throws IOException, InterruptedException {
+        EndpointStats endpointStats = stats.get(endpoint);
+        long start = System.nanoTime();
+        try {
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            boolean success = response.statusCode() / 100 == 2;
+            endpointStats.record(start, success);
+            response.headers().firstValueAsLong(SQL_STATEMENT_HEADER).ifPresent(endpointStats::recordSqlStatements);
+            return success ? JSON.readTree(response.body()).path("data") : null;
+        } catch (IOException e) {
+            endpointStats.record(start, false);
+            return null;
+        }
+    }
+
+    private void report(int seconds) {
+        System.out.printf("%n%-12s %9s %7s %10s %9s %9s %9s %9s %8s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "max sql");
+        for (EndpointStats s : stats.values()) {
+            // signup chỉ chạy một lần mỗi user ở pha chuẩn bị, không tính throughput
+            String throughput = s.getName().equals("signup") ? "-" : String.format("%.1f", (double) s.count() / seconds);
+            System.out.printf("%-12s %9d %7d %10s %9.2f %9.2f %9.2f %9.2f %8s%n",
+                    s.getName(), s.count(), s.errors(), throughput,
+                    s.percentileMillis(50), s.percentileMillis(95), s.percentileMillis(99), s.maxMillis(),
+                    s.maxSqlStatements() < 0 ? "-" : Long.toString(s.maxSqlStatements()));
+        }
+        System.out.println();
+    }
+
+    private static void reportRouting(MeterRegistry meterRegistry) {
+        System.out.println("Kết nối theo đích (datasource.routing):");
+        meterRegistry.find("datasource.routing").counters().forEach(c -> System.out.printf("  %-8s %-17s %d%n",
+                c.getId().getTag("target"), c.getId().getTag("reason"), (long) c.count()));
+        System.out.println();
+    }
+
+    private List<String> checkBudget(int seconds) throws IOException {
+        Properties budget = loadBudget();
+        List<String> violations = new ArrayList<>();
+        for (EndpointStats s : stats.values()) {
+            String name = s.getName();
+            for (double percentile : new double[]{95, 99}) {
+                String key = name + ".p" + (int) percentile;
+                String limit = budget.getProperty(key);
+                if (limit != null && s.percentileMillis(percentile) > Double.parseDouble(limit)) {
+                    violations.add(String.format("%s = %.2f ms > %s ms", key, s.percentileMillis(percentile), limit));
+                }
+            }
+            String minThroughput = budget.getProperty(name + ".min-throughput");
+            if (minThroughput != null && (double) s.count() / seconds < Double.parseDouble(minThroughput)) {
+                violations.add(String.format("%s.min-throughput = %.1f req/s < %s", name, (double) s.count() / seconds, minThroughput));
+            }
+            String maxSql = budget.getProperty(name + ".max-sql");
+            if (maxSql != null && s.maxSqlStatements() > Long.parseLong(maxSql)) {
+                violations.add(String.format("%s.max-sql = %d câu lệnh > %s", name, s.maxSqlStatements(), maxSql));
+            }
+            String maxErrorRate = budget.getProperty(name + ".max-error-rate", budget.getProperty("default.max-error-rate"));
+            if (maxErrorRate != null && s.errorRate() > Double.parseDouble(maxErrorRate)) {
+                violations.add(String.format("%s.max-error-rate = %.4f > %s", name, s.errorRate(), maxErrorRate));
+            }
+        }
+        return violations;
+    }
+
+    private Properties loadBudget() throws IOException {
+        Properties budget = new Properties();
+        String path = options.get("budget");
+        try (InputStream in = path != null
+                ? Files.newInputStream(Path.of(path))
+                : LoadTestRunner.class.getResourceAsStream("/loadtest-budget.properties")) {
+            if (in != null) {
+                budget.load(in);
+            }
+        }
+        return budget;
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return Integer.parseInt(options.getOrDefault(name, String.valueOf(defaultValue)));
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class VirtualUser {
+        private final String email;
+        private volatile String accessToken;
+        private volatile String refreshToken;
+
+        VirtualUser(String email, JsonNode tokens) {
+            this.email = email;
+            update(tokens);
+        }
+
+        void update(JsonNode tokens) {
+            this.accessToken = tokens.path("accessToken").asText();
+            this.refreshToken = tokens.path("refreshToken").asText();
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.elearning.e_hub.loadtest;
+
+import com.elearning.e_hub.EHubApplication;
+import com.elearning.e_hub.common.util.SearchText;
+import com.elearning.e_hub.module.user.dto.UserCursor;
+import com.elearning.e_hub.module.user.dto.UserSortField;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * So sánh phân trang OFFSET (GET /api/v1/users?page=) với cursor (GET /api/v1/users/scroll) ở các độ sâu khác nhau,
+ * cùng thứ tự createdAt DESC. Ứng dụng thật chạy trong process với Redis nhúng, mặc định trên H2.
+ *
+ * Kịch bản: tạo admin, seed thêm rows user bằng batch insert, rồi với mỗi vị trí (tỉ lệ của tổng số dòng)
+ * gọi trang OFFSET tương ứng và trang scroll bắt đầu ngay sau cùng vị trí đó (cursor dựng từ dòng đứng trước),
+ * kiểm tra hai trang có cùng dòng đầu tiên, đo tuần tự từng request (một client, không tải song song).
+ * Trang OFFSET gồm cả câu COUNT của Page; scroll dùng total=NONE như client cuộn vô hạn.
+ *
+ * Tham số (--key=value): rows, size, requests (mỗi vị trí), warmup (mỗi vị trí), positions (danh sách tỉ lệ,
+ * mặc định 0,0.01,0.1,0.5,1), db-url/db-username/db-password (mặc định H2 trong bộ nhớ; URL khác coi là Postgres, được ANALYZE sau seed).
+ */
+public final class PaginationProbe {
+
+    private static final String PASSWORD = "LoadTest@2024";
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String SQL_STATEMENT_HEADER = "X-SQL-Statement-Count";
+    private static final String H2_URL = "jdbc:h2:mem:pagination;DB_CLOSE_DELAY=-1";
+    private static final int SEED_BATCH_SIZE = 5000;
+
+    private final Map<String, String> options;
+    private HttpClient client;
+    private String baseUrl;
+    private String adminToken;
+
+    private PaginationProbe(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        System.exit(new PaginationProbe(options).run());
+    }
+
+    private int run() throws Exception {
+        int rows = intOption("rows", 200_000);
+        int size = intOption("size", 20);
+        int requests = intOption("requests", 50);
+        int warmup = intOption("warmup", 10);
+
+        int redisPort = freePort();
+        RedisServer redis = new RedisServer(redisPort);
+        redis.start();
+        ConfigurableApplicationContext app = null;
+        try {
+            app = new SpringApplicationBuilder(EHubApplication.class).run(commandLineArgs(redisPort));
+            baseUrl = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+            client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            JdbcTemplate jdbcTemplate = app.getBean(JdbcTemplate.class);
+
+            adminToken = createAdmin(jdbcTemplate);
+            long seedStart = System.nanoTime();
+            seed(jdbcTemplate, rows);
+            long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+            System.out.printf("Phân trang: %d user (seed %d s), trang %d, %d request đo + %d warmup mỗi vị trí, %s%n",
+                    total, Duration.ofNanos(System.nanoTime() - seedStart).toSeconds(), size, requests, warmup,
+                    options.getOrDefault("db-url", H2_URL));
+            System.out.printf("%n%-9s %-7s %9s %9s %9s %8s%n", "offset", "kiểu", "p50 ms", "p95 ms", "max ms", "max sql");
+
+            boolean consistent = true;
+            for (String position : options.getOrDefault("positions", "0,0.01,0.1,0.5,1").split(",")) {
+                // Làm tròn xuống đầu một trang và giữ trang cuối còn đủ dòng
+                long offset = Math.min((long) (Double.parseDouble(position.trim()) * total), total - size) / size * size;
+                String offsetPath = "/api/v1/users?page=" + offset / size + "&size=" + size + "&sort=createdAt,desc";
+                String cursor = offset == 0 ? null : cursorBefore(jdbcTemplate, offset);
+                String scrollPath = "/api/v1/users/scroll?size=" + size + (cursor == null ? "" : "&cursor=" + cursor);
+
+                EndpointStats offsetStats = measure("offset", offsetPath, warmup, requests);
+                EndpointStats scrollStats = measure("scroll", scrollPath, warmup, requests);
+                print(offset, offsetStats);
+                print(offset, scrollStats);
+
+                long offsetFirst = firstId(fetch(offsetPath));
+                long scrollFirst = firstId(fetch(scrollPath));
+                if (offsetFirst != scrollFirst) {
+                    System.out.printf("  KHÔNG KHỚP tại offset %d: OFFSET bắt đầu ở id %d, scroll ở id %d%n",
+                            offset, offsetFirst, scrollFirst);
+                    consistent = false;
+                }
+            }
+            System.out.println();
+            return consistent ? 0 : 1;
+        } finally {
+            if (app != null) {
+                app.close();
+            }
+            redis.stop();
+        }
+    }
+
+    private String[] commandLineArgs(int redisPort) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        String url = options.getOrDefault("db-url", H2_URL);
+        properties.put("spring.datasource.url", url);
+        properties.put("spring.datasource.driver-class-name", url.startsWith("jdbc:h2:") ? "org.h2.Driver" : "org.postgresql.Driver");
+        properties.put("spring.datasource.username", options.getOrDefault("db-username", "sa"));
+        properties.put("spring.datasource.password", options.getOrDefault("db-password", ""));
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        properties.put("spring.jpa.show-sql", false);
+        properties.put("spring.data.redis.host", "localhost");
+        properties.put("spring.data.redis.port", redisPort);
+        properties.put("security.password.bcrypt-cost", 4);
+        properties.put("metrics.sql.response-header", true);
+        properties.put("logging.level.root", "WARN");
+        return properties.entrySet().stream()
+                .map(e -> "--" + e.getKey() + "=" + e.getValue())
+                .toArray(String[]::new);
+    }
+
+    // Đăng ký, nâng quyền trong DB rồi đăng nhập lại để token mang role ADMIN
+    private String createAdmin(JdbcTemplate jdbcTemplate) throws IOException, InterruptedException {
+        String email = "pagination-admin@ehub.vn";
+        String body = JSON.writeValueAsString(Map.of("email", email, "password", PASSWORD, "fullName", "Pagination Admin"));
+        fetch(post("/api/v1/auth/signup", body));
+        jdbcTemplate.update("UPDATE users SET role = 'ADMIN' WHERE email = ?", email);
+        JsonNode tokens = fetch(post("/api/v1/auth/login",
+                JSON.writeValueAsString(Map.of("email", email, "password", PASSWORD))));
+        return tokens.path("accessToken").asText();
+    }
+
+    /*
+     * Seed trực tiếp bằng batch insert, id nằm trên mọi id do sequence cấp cho admin.
+     * created_at giảm dần theo id và không trùng nhau, giống dữ liệu đăng ký theo thời gian.
+     */
+    private static void seed(JdbcTemplate jdbcTemplate, int rows) {
+        long firstId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Long.class) + 1_000;
+        String password = jdbcTemplate.queryForObject("SELECT password FROM users WHERE id = ?", String.class, firstId - 1_000);
+        LocalDateTime start = LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        for (int from = 0; from < rows; from += SEED_BATCH_SIZE) {
+            List<Object[]> batch = new ArrayList<>();
+            for (int i = from; i < Math.min(rows, from + SEED_BATCH_SIZE); i++) {
+                String fullName = "Pagination User " + i;
+                String email = "pagination" + i + "@ehub.vn";
+                Timestamp createdAt = Timestamp.valueOf(start.minusSeconds(i));
+                batch.add(new Object[]{firstId + i, fullName, email, password, SearchText.of(fullName, email),
+                        createdAt, createdAt});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO users (id, full_name, email, password, role, status, search_text, "
+                    + "created_at, updated_at) VALUES (?, ?, ?, ?, 'USER', 'ACTIVE', ?, ?, ?)", batch);
+        }
+        if (isPostgres(jdbcTemplate)) {
+            jdbcTemplate.execute("ANALYZE users");
+        }
+    }
+
+    private static boolean isPostgres(JdbcTemplate jdbcTemplate) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((Connection connection) ->
+                connection.getMetaData().getDatabaseProductName().equalsIgnoreCase("PostgreSQL")));
+    }
+
+    // Cursor của dòng đứng ngay trước offset, cùng định dạng giá trị với UserServiceImpl.scrollUsers
+    private static String cursorBefore(JdbcTemplate jdbcTemplate, long offset) {
+        return jdbcTemplate.queryForObject(
+                "SELECT id, created_at FROM users ORDER BY created_at DESC, id DESC OFFSET ? ROWS FETCH FIRST 1 ROWS ONLY",
+                (rs, rowNum) -> new UserCursor(UserSortField.CREATED_AT, Sort.Direction.DESC,
+                        String.valueOf(rs.getTimestamp(2).toLocalDateTime()), rs.getLong(1)).encode(),
+                offset - 1);
+    }
+
+    private EndpointStats measure(String name, String path, int warmup, int requests) throws IOException, InterruptedException {
+        EndpointStats stats = new EndpointStats(name);
+        for (int i = 0; i < warmup + requests; i++) {
+            if (i == warmup) {
+                stats.reset();
+            }
+            long start = System.nanoTime();
+            HttpResponse<byte[]> response = client.send(get(path), HttpResponse.BodyHandlers.ofByteArray());
+            stats.record(start, response.statusCode() == 200);
+            response.headers().firstValueAsLong(SQL_STATEMENT_HEADER).ifPresent(stats::recordSqlStatements);
+        }
+        return stats;
+    }
+
+    private static void print(long offset, EndpointStats s) {
+        System.out.printf("%-9d %-7s %9.2f %9.2f %9.2f %8s%s%n", offset, s.getName(),
+                s.percentileMillis(50), s.percentileMillis(95), s.maxMillis(),
+                s.maxSqlStatements() < 0 ? "-" : Long.toString(s.maxSqlStatements()),
+                s.errors() > 0 ? "  (" + s.errors() + " lỗi)" : "");
+    }
+
+    private static long firstId(JsonNode page) {
+        return page.path("content").path(0).path("id").asLong(-1);
+    }
+
+    private JsonNode fetch(String path) throws IOException, InterruptedException {
+        return fetch(get(path));
+    }
+
+    // Trả về trường data của ApiResponse; lỗi ở đây là lỗi kịch bản nên dừng luôn
+    private JsonNode fetch(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(request.uri() + " trả về " + response.statusCode());
+        }
+        return JSON.readTree(response.body()).path("data");
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + adminToken)
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return Integer.parseInt(options.getOrDefault(name, String.valueOf(defaultValue)));
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
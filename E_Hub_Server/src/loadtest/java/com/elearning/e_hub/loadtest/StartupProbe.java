@@ -0,0 +1,182 @@
+package com.elearning.e_hub.loadtest;
+
+import redis.embedded.RedisServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo thời gian từ lúc khởi chạy JVM tới khi request đầu tiên được trả lời, trên bản build fast-start
+ * (mvn -Pfast-start package): jar mỏng + lib/ + archive CDS trong target/fast-start.
+ *
+ * Mỗi biến thể chạy một tiến trình riêng với profile prod (Flyway + validate) trên H2 và Redis nhúng,
+ * rồi gửi liên tục POST /api/v1/auth/login với tài khoản không tồn tại cho tới khi nhận được phản hồi
+ * (401: đã qua filter bảo mật, controller, truy vấn DB và exception handler). Lấy trung vị của các lần chạy.
+ * Biến thể: jar (không tối ưu), cds, aot, aot+cds; ngân sách startup.time-to-first-request áp dụng cho aot+cds.
+ *
+ * Tham số (--key=value): dir (mặc định target/fast-start), runs, timeout (giây), budget (đường dẫn file).
+ */
+public final class StartupProbe {
+
+    private static final String BUDGET_KEY = "startup.time-to-first-request";
+    private static final String FIRST_REQUEST_BODY = "{\"email\":\"startup-probe@ehub.vn\",\"password\":\"Probe@2024x\"}";
+
+    private final Map<String, String> options;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(200))
+            .build();
+
+    private StartupProbe(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        System.exit(new StartupProbe(options).run());
+    }
+
+    private int run() throws Exception {
+        Path dir = Path.of(options.getOrDefault("dir", "target/fast-start"));
+        Path jar = dir.resolve("e-hub.jar");
+        Path archive = dir.resolve("e-hub.jsa");
+        if (!Files.exists(jar) || !Files.exists(archive)) {
+            System.out.println("Không tìm thấy " + jar + " hoặc " + archive + ": chạy mvn -Pfast-start package trước");
+            return 1;
+        }
+        int runs = Integer.parseInt(options.getOrDefault("runs", "3"));
+
+        Map<String, List<String>> variants = new LinkedHashMap<>();
+        variants.put("jar", List.of());
+        variants.put("cds", List.of("-XX:SharedArchiveFile=" + archive));
+        variants.put("aot", List.of("-Dspring.aot.enabled=true"));
+        variants.put("aot+cds", List.of("-XX:SharedArchiveFile=" + archive, "-Dspring.aot.enabled=true"));
+
+        int redisPort = freePort();
+        RedisServer redis = new RedisServer(redisPort);
+        redis.start();
+        Map<String, Long> medians = new LinkedHashMap<>();
+        try {
+            System.out.printf("Thời gian tới request đầu tiên (ms), %d lần mỗi biến thể, profile prod trên H2%n", runs);
+            for (Map.Entry<String, List<String>> variant : variants.entrySet()) {
+                List<Long> samples = new ArrayList<>();
+                for (int i = 0; i < runs; i++) {
+                    samples.add(measure(dir, jar, variant.getKey(), variant.getValue(), redisPort));
+                }
+                List<Long> sorted = samples.stream().sorted().toList();
+                long median = sorted.get(sorted.size() / 2);
+                medians.put(variant.getKey(), median);
+                System.out.printf("  %-8s trung vị %6d   %s%n", variant.getKey(), median, samples);
+            }
+        } finally {
+            redis.stop();
+        }
+
+        String limit = loadBudget().getProperty(BUDGET_KEY);
+        long fastStart = medians.get("aot+cds");
+        if (limit != null && fastStart > Long.parseLong(limit)) {
+            System.out.printf("VƯỢT NGÂN SÁCH: %s = %d ms > %s ms%n", BUDGET_KEY, fastStart, limit);
+            return 1;
+        }
+        System.out.println("Đạt ngân sách khởi động.");
+        return 0;
+    }
+
+    private long measure(Path dir, Path jar, String variant, List<String> jvmFlags, int redisPort) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmFlags);
+        // H2 đặt sau jar: đường dẫn lớp lúc tạo archive CDS phải là tiền tố của đường dẫn lớp lúc chạy
+        command.add("-cp");
+        command.add(jar + File.pathSeparator + h2Jar());
+        command.add("com.elearning.e_hub.EHubApplication");
+        command.add("--spring.profiles.active=prod");
+        command.add("--server.port=" + port);
+        command.add("--spring.datasource.url=jdbc:h2:mem:startup;DB_CLOSE_DELAY=-1");
+        command.add("--spring.datasource.username=sa");
+        command.add("--spring.datasource.password=");
+        command.add("--spring.datasource.driver-class-name=org.h2.Driver");
+        command.add("--spring.data.redis.host=localhost");
+        command.add("--spring.data.redis.port=" + redisPort);
+        command.add("--logging.level.root=WARN");
+
+        Path log = dir.resolve("startup-probe-" + variant.replace('+', '-') + ".log");
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("timeout", "120")));
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/auth/login"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(10))
+                .POST(HttpRequest.BodyPublishers.ofString(FIRST_REQUEST_BODY))
+                .build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            while (System.nanoTime() - start < timeoutNanos) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Ứng dụng (" + variant + ") dừng khi khởi động, xem " + log);
+                }
+                try {
+                    client.send(request, HttpResponse.BodyHandlers.discarding());
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                } catch (IOException e) {
+                    // Chưa mở cổng
+                    Thread.sleep(20);
+                }
+            }
+            throw new IllegalStateException("Ứng dụng (" + variant + ") không phản hồi sau timeout, xem " + log);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static String h2Jar() throws Exception {
+        return Path.of(org.h2.Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+    }
+
+    private Properties loadBudget() throws IOException {
+        Properties budget = new Properties();
+        String path = options.get("budget");
+        try (InputStream in = path != null
+                ? Files.newInputStream(Path.of(path))
+                : StartupProbe.class.getResourceAsStream("/loadtest-budget.properties")) {
+            if (in != null) {
+                budget.load(in);
+            }
+        }
+        return budget;
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.elearning.e_hub;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class EHubApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(EHubApplication.class, args);
+    }
+}
@@ -1,27 +1,55 @@
 package com.elearning.e_hub.common.aop;
 
+import com.elearning.e_hub.common.annotation.LogExecution;
+import com.elearning.e_hub.common.exception.AppException;
+import com.elearning.e_hub.common.metrics.ExecutionMetrics;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.stereotype.Component;
 
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 @Aspect
 @Component
 @Slf4j
+@RequiredArgsConstructor
 public class LoggingAspect {
-    @Around("@annotation(com.elearning.e_hub.common.annotation.LogExecution)")
-    public Object logExecution(ProceedingJoinPoint joinPoint) throws Throwable {
-        long start = System.currentTimeMillis();
+
+    private final ExecutionMetrics executionMetrics;
+
+    // Tên metric theo method, tính một lần thay vì dựng chuỗi signature mỗi lời gọi
+    private final ConcurrentMap<Method, String> names = new ConcurrentHashMap<>();
+
+    @Around("@annotation(logExecution)")
+    public Object logExecution(ProceedingJoinPoint joinPoint, LogExecution logExecution) throws Throwable {
+        long start = System.nanoTime();
+        String outcome = ExecutionMetrics.SUCCESS;
         try {
-            Object result = joinPoint.proceed();
-            long duration = System.currentTimeMillis() - start;
-            log.info("[LOG] Method: {} executed in {} ms", joinPoint.getSignature(), duration);
-            return result;
-        } catch (Exception ex) {
-            log.error("[LOG] Exception in method: {} - {}", joinPoint.getSignature(), ex.getMessage());
+            return joinPoint.proceed();
+        } catch (Throwable ex) {
+            outcome = ExecutionMetrics.outcomeOf(ex);
+            // AppException và sai thông tin đăng nhập là luồng nghiệp vụ bình thường, đã có trong tag outcome;
+            // chỉ log lỗi bất ngờ
+            if (!(ex instanceof AppException) && !(ex instanceof AuthenticationException)) {
+                log.error("[LOG] Exception in method: {} - {}", joinPoint.getSignature(), ex.getMessage());
+            }
             throw ex;
+        } finally {
+            executionMetrics.record(nameOf(joinPoint, logExecution), outcome, start);
         }
     }
-}
 
+    private String nameOf(ProceedingJoinPoint joinPoint, LogExecution logExecution) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        return names.computeIfAbsent(method, m -> logExecution.value().isEmpty()
+                ? m.getDeclaringClass().getSimpleName() + "." + m.getName()
+                : logExecution.value());
+    }
+}
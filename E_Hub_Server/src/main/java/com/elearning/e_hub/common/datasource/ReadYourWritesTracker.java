@@ -0,0 +1,114 @@
+package com.elearning.e_hub.common.datasource;
+
+import com.elearning.e_hub.security.CustomUserDetails;
+import com.elearning.e_hub.security.UserPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Read-your-writes cho định tuyến replica: sau khi transaction ghi của một user commit, các lần đọc của user đó
+ * được ghim về primary trong read-your-writes-window (ms), đủ để replica bắt kịp.
+ * Trạng thái ghim nằm trong bộ nhớ từng node; chạy nhiều node thì load balancer cần giữ user trên cùng node
+ * (sticky) trong khoảng thời gian này.
+ * Việc ghim chỉ áp dụng cho người ghi. Dữ liệu đọc để nạp cache dùng chung (profile, principal) sống lâu hơn
+ * độ trễ replica và được đọc bởi mọi user, nên lần nạp đó luôn đi primary qua readFromPrimary().
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private static final ThreadLocal<Boolean> PRIMARY_READ = new ThreadLocal<>();
+
+    @Value("${datasource.routing.enabled:false}")
+    private boolean enabled;
+
+    @Value("${datasource.routing.read-your-writes-window:2000}")
+    private long window;
+
+    @Value("${datasource.routing.read-your-writes-max-users:100000}")
+    private long maxUsers;
+
+    private Cache<Long, Boolean> recentWriters;
+
+    @PostConstruct
+    void init() {
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofMillis(window))
+                .build();
+    }
+
+    /**
+     * Ghi nhận user vừa ghi dữ liệu. Trong transaction thì chỉ ghim sau khi commit
+     * (rollback không làm user bị ghim vô ích).
+     */
+    public void recordWrite(Long userId) {
+        if (!enabled || userId == null || window <= 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentWriters.put(userId, Boolean.TRUE);
+                }
+            });
+        } else {
+            recentWriters.put(userId, Boolean.TRUE);
+        }
+    }
+
+    // Ghi nhận cho user đang đăng nhập (không có thì bỏ qua)
+    public void recordWriteForCurrentUser() {
+        recordWrite(currentUserId());
+    }
+
+    /**
+     * Chạy read trên primary kể cả khi nó mở transaction readOnly. Dùng cho lần nạp cache: một admin sửa/xóa user
+     * rồi invalidate cache, lần nạp kế tiếp đọc từ replica đang trễ sẽ đưa dòng cũ trở lại cache tới hết TTL.
+     */
+    public <T> T readFromPrimary(Supplier<T> read) {
+        if (!enabled || PRIMARY_READ.get() != null) {
+            return read.get();
+        }
+        PRIMARY_READ.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            PRIMARY_READ.remove();
+        }
+    }
+
+    public boolean isPrimaryReadRequested() {
+        return PRIMARY_READ.get() != null;
+    }
+
+    public boolean isPinnedToPrimary() {
+        Long userId = currentUserId();
+        return userId != null && recentWriters.getIfPresent(userId) != null;
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return null;
+        }
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof UserPrincipal userPrincipal) {
+            return userPrincipal.getId();
+        }
+        if (principal instanceof CustomUserDetails details) {
+            return details.getUser().getId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,193 @@
+package com.elearning.e_hub.common.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Định tuyến đọc/ghi: transaction readOnly đi tới một replica khỏe (round-robin), mọi thứ khác đi tới primary.
+ * Về primary khi: đang nạp cache (ReadYourWritesTracker.readFromPrimary), không có replica khỏe,
+ * user đang trong cửa sổ read-your-writes, hoặc không mở được kết nối tới replica
+ * (replica đó bị đánh dấu down cho tới lần health check kế tiếp).
+ * Phải được bọc bởi LazyConnectionDataSourceProxy: kết nối thật chỉ được lấy ở câu lệnh đầu tiên,
+ * khi cờ readOnly của transaction đã được đặt.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWritesTracker readYourWrites;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Counter primaryWrites;
+    private final Counter primaryNoTransaction;
+    private final Counter primaryPinned;
+    private final Counter primaryCacheFill;
+    private final Counter primaryFallback;
+    private final Counter replicaReads;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas,
+                                    ReadYourWritesTracker readYourWrites, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.readYourWrites = readYourWrites;
+        this.primaryWrites = routed(meterRegistry, "primary", "write");
+        this.primaryNoTransaction = routed(meterRegistry, "primary", "no-transaction");
+        this.primaryPinned = routed(meterRegistry, "primary", "read-your-writes");
+        this.primaryCacheFill = routed(meterRegistry, "primary", "cache-fill");
+        this.primaryFallback = routed(meterRegistry, "primary", "no-replica");
+        this.replicaReads = routed(meterRegistry, "replica", "read");
+        Gauge.builder("datasource.replicas.healthy", this,
+                        ds -> ds.replicas.stream().filter(Replica::isHealthy).count())
+                .description("Số replica đang nhận truy vấn đọc")
+                .register(meterRegistry);
+    }
+
+    private static Counter routed(MeterRegistry meterRegistry, String target, String reason) {
+        return Counter.builder("datasource.routing")
+                .description("Số kết nối được định tuyến theo đích và lý do")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    // Trạng thái khỏe do health check cập nhật, hoặc bị đánh dấu down ngay khi không mở được kết nối
+    @Getter
+    @RequiredArgsConstructor
+    public static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Auto-commit ngoài transaction: không biết là đọc hay ghi nên luôn đi primary
+            primaryNoTransaction.increment();
+            return primary.getConnection();
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            primaryWrites.increment();
+            readYourWrites.recordWriteForCurrentUser();
+            return primary.getConnection();
+        }
+        if (readYourWrites.isPrimaryReadRequested()) {
+            primaryCacheFill.increment();
+            return primary.getConnection();
+        }
+        if (readYourWrites.isPinnedToPrimary()) {
+            primaryPinned.increment();
+            return primary.getConnection();
+        }
+        Replica replica = nextHealthyReplica();
+        if (replica == null) {
+            primaryFallback.increment();
+            return primary.getConnection();
+        }
+        try {
+            Connection connection = replica.dataSource.getConnection();
+            replicaReads.increment();
+            return connection;
+        } catch (SQLException e) {
+            markDown(replica, e.getMessage());
+            primaryFallback.increment();
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * Kiểm tra từng replica: mở được kết nối hợp lệ và (nếu cấu hình lagQuery/maxLagMillis)
+     * độ trễ replication không vượt ngưỡng. Replica không đạt bị loại khỏi vòng đọc cho tới lần kiểm tra sau.
+     */
+    public void checkReplicas(int validationTimeoutSeconds, String lagQuery, long maxLagMillis) {
+        for (Replica replica : replicas) {
+            String problem = probe(replica, validationTimeoutSeconds, lagQuery, maxLagMillis);
+            if (problem != null) {
+                markDown(replica, problem);
+            } else if (!replica.healthy) {
+                replica.healthy = true;
+                log.info("Replica {} hoạt động trở lại, nhận lại truy vấn đọc", replica.name);
+            }
+        }
+    }
+
+    private static String probe(Replica replica, int validationTimeoutSeconds, String lagQuery, long maxLagMillis) {
+        try (Connection connection = replica.dataSource.getConnection()) {
+            if (!connection.isValid(validationTimeoutSeconds)) {
+                return "kết nối không hợp lệ";
+            }
+            if (maxLagMillis <= 0 || lagQuery == null || lagQuery.isBlank()) {
+                return null;
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(lagQuery)) {
+                // NULL: chưa replay transaction nào, coi như chưa đủ tin cậy để đọc
+                if (!rs.next()) {
+                    return "không xác định được độ trễ replication";
+                }
+                double lag = rs.getDouble(1);
+                if (rs.wasNull()) {
+                    return "không xác định được độ trễ replication";
+                }
+                return lag > maxLagMillis ? "trễ replication " + (long) lag + "ms" : null;
+            }
+        } catch (SQLException e) {
+            return e.getMessage();
+        }
+    }
+
+    // Pool của replica không phải bean nên tự đóng khi context tắt (destroy method suy luận từ close())
+    public void close() {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Không thể đóng pool của replica {}: {}", replica.name, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private Replica nextHealthyReplica() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private static void markDown(Replica replica, String reason) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            log.warn("Loại replica {} khỏi vòng đọc: {}", replica.name, reason);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.elearning.e_hub.common.dto;
+
+import java.util.List;
+
+/**
+ * Một trang kết quả phân trang theo cursor (keyset).
+ * nextCursor là token mờ (opaque), truyền lại nguyên vẹn để lấy trang kế tiếp; null khi đã hết dữ liệu.
+ * totalElements chỉ có khi client yêu cầu (xem {@link TotalMode}), mặc định là null.
+ */
+public record CursorPage<T>(
+    List<T> content,
+    int size,
+    String nextCursor,
+    boolean hasNext,
+    Long totalElements,
+    TotalMode totalMode
+) {
+    public enum TotalMode {
+        // Không đếm (mặc định) - không tốn thêm truy vấn nào
+        NONE,
+        // Ước lượng từ thống kê của planner (pg_class.reltuples), O(1)
+        ESTIMATE,
+        // count(*) chính xác - quét toàn bảng, chỉ dùng khi thật sự cần
+        EXACT
+    }
+}
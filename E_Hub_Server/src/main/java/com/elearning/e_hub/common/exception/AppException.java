@@ -1,17 +1,54 @@
 package com.elearning.e_hub.common.exception;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
+/**
+ * Lỗi nghiệp vụ dự kiến (sai mật khẩu, token hết hạn, không tìm thấy, ...), được ném rất thường xuyên
+ * nên không ghi stack trace; riêng INTERNAL_ERROR giữ stack trace để điều tra.
+ * Message được format lười từ template + args, chỉ khi thật sự được đọc.
+ * Lỗi có message cố định nên dùng instance dựng sẵn qua {@link #cached}, giữ trong hằng static final.
+ */
 @Getter
 public class AppException extends RuntimeException {
     private final ErrorCode errorCode;
     private final Object[] args;
+    // > 0: số giây client nên chờ trước khi thử lại (header Retry-After)
+    private final long retryAfterSeconds;
+    // Instance dựng sẵn, dùng chung giữa các request (GlobalExceptionHandler cache luôn body đã serialize)
+    private final boolean cached;
+    @Getter(AccessLevel.NONE)
+    private String formattedMessage;
 
     public AppException(ErrorCode errorCode, String message, Object... args) {
-        super(message);
+        this(errorCode, 0, false, message, args);
+    }
+
+    private AppException(ErrorCode errorCode, long retryAfterSeconds, boolean cached, String message, Object... args) {
+        // Không có cause và tắt suppression: instance dựng sẵn không bị thay đổi khi ném từ nhiều thread
+        super(message, null, false, !cached && errorCode == ErrorCode.INTERNAL_ERROR);
         this.errorCode = errorCode;
         this.args = args;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.cached = cached;
     }
 
-}
+    public static AppException retryAfter(ErrorCode errorCode, long retryAfterSeconds, String message) {
+        return new AppException(errorCode, retryAfterSeconds, false, message);
+    }
 
+    public static AppException cached(ErrorCode errorCode, String message) {
+        return new AppException(errorCode, 0, true, message);
+    }
+
+    @Override
+    public String getMessage() {
+        String message = formattedMessage;
+        if (message == null) {
+            String template = super.getMessage();
+            message = template == null || args == null || args.length == 0 ? template : String.format(template, args);
+            formattedMessage = message;
+        }
+        return message;
+    }
+}
@@ -5,14 +5,17 @@ public enum ErrorCode {
     INVALID_CREDENTIALS(401, "auth.invalid_credentials"),
     TOKEN_EXPIRED(401, "auth.token_expired"),
     INVALID_TOKEN(401, "auth.invalid_token"),
+    TOO_MANY_LOGIN_ATTEMPTS(429, "auth.too_many_attempts"),
     // User errors
     USER_NOT_FOUND(404, "user.not_found"),
     EMAIL_ALREADY_EXISTS(409, "user.email_exists"),
+    IMPORT_JOB_NOT_FOUND(404, "user.import_job_not_found"),
     // Course errors
     COURSE_NOT_FOUND(404, "course.not_found"),
     UNAUTHORIZED_ACCESS(403, "course.unauthorized"),
     // Common errors
     VALIDATION_ERROR(400, "common.validation_error"),
+    SERVICE_BUSY(503, "common.service_busy"),
     INTERNAL_ERROR(500, "common.internal_error");
 
     private final int status;
@@ -1,35 +1,129 @@
 package com.elearning.e_hub.common.exception;
 
 import com.elearning.e_hub.common.dto.ApiResponse;
-import org.springframework.http.HttpStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.ErrorResponse;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Body lỗi được ghi thẳng dưới dạng byte JSON: body của lỗi có message cố định (AppException dựng sẵn,
+ * sai thông tin đăng nhập, lỗi hệ thống) chỉ serialize một lần rồi dùng lại.
+ * Mỗi ErrorCode có counter "app.errors" (tag code, status).
+ */
+@Slf4j
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
     private final String ERROR = "ERROR";
 
+    private static final String INVALID_CREDENTIALS_MESSAGE = "Email hoặc mật khẩu không đúng";
+    private static final String ACCESS_DENIED_MESSAGE = "Bạn không có quyền thực hiện thao tác này";
+    private static final String INTERNAL_ERROR_MESSAGE = "Internal server error";
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    // Khóa theo identity của instance dựng sẵn (Throwable không override equals), số lượng bằng số hằng trong code
+    private final ConcurrentMap<AppException, byte[]> cachedBodies = new ConcurrentHashMap<>();
+    private final Map<ErrorCode, Counter> counters = new EnumMap<>(ErrorCode.class);
+    private byte[] invalidCredentialsBody;
+    private byte[] accessDeniedBody;
+    private byte[] internalErrorBody;
+
+    @PostConstruct
+    void init() {
+        for (ErrorCode code : ErrorCode.values()) {
+            counters.put(code, Counter.builder("app.errors")
+                    .description("Số lỗi trả về client theo ErrorCode")
+                    .tag("code", code.name())
+                    .tag("status", Integer.toString(code.getStatus()))
+                    .register(meterRegistry));
+        }
+        invalidCredentialsBody = serialize(INVALID_CREDENTIALS_MESSAGE);
+        accessDeniedBody = serialize(ACCESS_DENIED_MESSAGE);
+        internalErrorBody = serialize(INTERNAL_ERROR_MESSAGE);
+    }
+
     @ExceptionHandler(AppException.class)
-    public ResponseEntity<ApiResponse<?>> handleAppException(AppException ex) {
-        ApiResponse<?> response = new ApiResponse<>(ERROR, ex.getMessage(), null);
-        return new ResponseEntity<>(response, HttpStatus.valueOf(ex.getErrorCode().getStatus()));
+    public ResponseEntity<byte[]> handleAppException(AppException ex) {
+        byte[] body = ex.isCached()
+                ? cachedBodies.computeIfAbsent(ex, e -> serialize(e.getMessage()))
+                : serialize(ex.getMessage());
+        if (ex.getErrorCode() == ErrorCode.INTERNAL_ERROR) {
+            log.error("Lỗi hệ thống: {}", ex.getMessage(), ex);
+        }
+        return error(ex.getErrorCode(), body, ex.getRetryAfterSeconds());
+    }
+
+    // Sai email/mật khẩu, tài khoản bị khóa hay vô hiệu hóa khi login: cùng một body để không lộ trạng thái tài khoản
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<byte[]> handleAuthenticationException(AuthenticationException ex) {
+        return error(ErrorCode.INVALID_CREDENTIALS, invalidCredentialsBody);
+    }
+
+    // @PreAuthorize từ chối trong controller, hoặc từ filter chain qua JwtAccessDeniedHandler
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<byte[]> handleAccessDeniedException(AccessDeniedException ex) {
+        return error(ErrorCode.UNAUTHORIZED_ACCESS, accessDeniedBody);
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<ApiResponse<?>> handleValidationException(MethodArgumentNotValidException ex) {
+    public ResponseEntity<byte[]> handleValidationException(MethodArgumentNotValidException ex) {
         String message = ex.getBindingResult().getFieldErrors().stream()
                 .map(e -> e.getField() + ": " + e.getDefaultMessage())
                 .findFirst().orElse("Validation error");
-        ApiResponse<?> response = new ApiResponse<>(ERROR, message, null);
-        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        return error(ErrorCode.VALIDATION_ERROR, serialize(message));
     }
 
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<ApiResponse<?>> handleOtherException(Exception ex) {
-        ApiResponse<?> response = new ApiResponse<>(ERROR, "Internal server error", null);
-        return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+    public ResponseEntity<byte[]> handleOtherException(Exception ex) {
+        // Lỗi chuẩn của Spring MVC do client (thiếu tham số, sai method, ...): giữ status gốc, không log stack trace
+        if (ex instanceof ErrorResponse errorResponse && errorResponse.getStatusCode().is4xxClientError()) {
+            return ResponseEntity.status(errorResponse.getStatusCode())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(serialize(errorResponse.getBody().getDetail()));
+        }
+        log.error("Lỗi không xử lý: ", ex);
+        return error(ErrorCode.INTERNAL_ERROR, internalErrorBody);
+    }
+
+    private ResponseEntity<byte[]> error(ErrorCode code, byte[] body) {
+        return error(code, body, 0);
     }
-}
 
+    private ResponseEntity<byte[]> error(ErrorCode code, byte[] body, long retryAfterSeconds) {
+        counters.get(code).increment();
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(code.getStatus())
+                .contentType(MediaType.APPLICATION_JSON);
+        if (retryAfterSeconds > 0) {
+            response.header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        }
+        return response.body(body);
+    }
+
+    private byte[] serialize(String message) {
+        try {
+            return objectMapper.writeValueAsBytes(new ApiResponse<>(ERROR, message, null));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
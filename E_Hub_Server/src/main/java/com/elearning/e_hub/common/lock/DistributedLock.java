@@ -0,0 +1,45 @@
+package com.elearning.e_hub.common.lock;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Khóa phân tán đơn giản trên Redis (SET NX PX) để chỉ một node chạy một job tại một thời điểm.
+ * Khóa tự hết hạn sau ttl nếu node giữ khóa chết giữa chừng.
+ */
+@Component
+@RequiredArgsConstructor
+public class DistributedLock {
+
+    private static final String KEY_PREFIX = "lock:";
+
+    // Chỉ xóa khóa nếu vẫn do chính owner này giữ
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    /**
+     * @return token của owner nếu lấy được khóa, null nếu node khác đang giữ
+     */
+    public String tryAcquire(String name, Duration ttl) {
+        String token = UUID.randomUUID().toString();
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + name, token, ttl);
+        return Boolean.TRUE.equals(acquired) ? token : null;
+    }
+
+    public void release(String name, String token) {
+        redisTemplate.execute(RELEASE_SCRIPT, List.of(KEY_PREFIX + name), token);
+    }
+}
@@ -0,0 +1,63 @@
+package com.elearning.e_hub.common.metrics;
+
+import com.elearning.e_hub.common.exception.AppException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ghi thời gian thực thi vào timer "method.execution" (tag method, outcome) với histogram percentile.
+ * Timer được cache theo (method, outcome) để đường nóng không phải dựng lại builder mỗi lần gọi.
+ * Chỉ ghi log khi lời gọi chậm hơn ngưỡng metrics.execution.slow-threshold.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExecutionMetrics {
+
+    public static final String TIMER_NAME = "method.execution";
+    public static final String SUCCESS = "SUCCESS";
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, ConcurrentMap<String, Timer>> timers = new ConcurrentHashMap<>();
+
+    @Value("${metrics.execution.slow-threshold:500}")
+    private long slowThresholdMillis;
+
+    public void record(String method, String outcome, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        timers.computeIfAbsent(method, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(outcome, k -> register(method, outcome))
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        if (elapsed >= TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis)) {
+            log.warn("[SLOW] {} ({}) mất {} ms", method, outcome, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+    }
+
+    // AppException: tên ErrorCode; lỗi khác: tên lớp exception
+    public static String outcomeOf(Throwable error) {
+        if (error instanceof AppException appException) {
+            return appException.getErrorCode().name();
+        }
+        return error.getClass().getSimpleName();
+    }
+
+    private Timer register(String method, String outcome) {
+        return Timer.builder(TIMER_NAME)
+                .description("Thời gian thực thi các thao tác được đo")
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,82 @@
+package com.elearning.e_hub.common.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Đếm số câu SQL Hibernate phát ra trong một phạm vi (thường là một HTTP request) trên thread hiện tại.
+ * SqlStatementInspector ghi nhận từng câu, SqlStatementFilter mở phạm vi cho mỗi request.
+ * Dùng được trực tiếp trong test để khẳng định giới hạn số câu lệnh:
+ * <pre>
+ * try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+ *     userService.updateUser(id, request);
+ *     assertThat(scope.count()).isLessThanOrEqualTo(2);
+ * }
+ * </pre>
+ * Câu lệnh chạy qua JdbcTemplate (export, import) không đi qua Hibernate nên không được đếm.
+ */
+public final class SqlStatementCounter {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private SqlStatementCounter() {
+    }
+
+    // Mở phạm vi mới trên thread hiện tại; phạm vi lồng nhau được khôi phục khi close()
+    public static Scope open() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    static void record(String sql) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.record(sql);
+        }
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private final Map<String, Integer> statements = new HashMap<>();
+        private int count;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        private void record(String sql) {
+            count++;
+            // SQL chứa placeholder '?' nên cùng truy vấn với tham số khác nhau được gộp chung một khóa
+            statements.merge(sql, 1, Integer::sum);
+            if (parent != null) {
+                parent.record(sql);
+            }
+        }
+
+        public int count() {
+            return count;
+        }
+
+        // Các câu lệnh giống hệt nhau lặp lại ít nhất threshold lần: nghi vấn N+1
+        public Map<String, Integer> repeated(int threshold) {
+            Map<String, Integer> result = new HashMap<>();
+            statements.forEach((sql, times) -> {
+                if (times >= threshold) {
+                    result.put(sql, times);
+                }
+            });
+            return result;
+        }
+
+        @Override
+        public void close() {
+            if (parent != null) {
+                CURRENT.set(parent);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.elearning.e_hub.common.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Đếm số câu SQL mỗi request: ghi vào summary "http.server.requests.sql" (tag method, uri),
+ * trả header X-SQL-Statement-Count khi metrics.sql.response-header bật (tắt ở production)
+ * và cảnh báo khi một câu lệnh giống hệt nhau lặp lại từ metrics.sql.repeat-threshold lần (nghi vấn N+1).
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class SqlStatementFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-SQL-Statement-Count";
+    public static final String SUMMARY_NAME = "http.server.requests.sql";
+    public static final String SUSPECTED_N_PLUS_ONE = "sql.n_plus_one.suspected";
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+    private static final int MAX_LOGGED_SQL_LENGTH = 300;
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    @Value("${metrics.sql.response-header:false}")
+    private boolean responseHeader;
+
+    @Value("${metrics.sql.repeat-threshold:5}")
+    private int repeatThreshold;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            HttpServletResponse target = responseHeader ? new CountHeaderResponse(response, scope) : response;
+            try {
+                filterChain.doFilter(request, target);
+            } finally {
+                if (target instanceof CountHeaderResponse countHeaderResponse) {
+                    countHeaderResponse.writeHeader();
+                }
+                record(request, scope);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatementCounter.Scope scope) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : UNKNOWN_URI;
+        String method = request.getMethod();
+
+        summaries.computeIfAbsent(method + ' ' + uri, k -> DistributionSummary.builder(SUMMARY_NAME)
+                        .description("Số câu SQL mỗi request")
+                        .tag("method", method)
+                        .tag("uri", uri)
+                        .register(meterRegistry))
+                .record(scope.count());
+
+        Map<String, Integer> repeated = scope.repeated(repeatThreshold);
+        if (!repeated.isEmpty()) {
+            Counter.builder(SUSPECTED_N_PLUS_ONE)
+                    .description("Request có câu SQL giống hệt nhau lặp lại nhiều lần")
+                    .tag("method", method)
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+            repeated.forEach((sql, times) -> log.warn("[N+1?] {} {}: câu lệnh lặp {} lần ({} câu trong request): {}",
+                    method, uri, times, scope.count(), abbreviate(sql)));
+        }
+    }
+
+    private static String abbreviate(String sql) {
+        return sql.length() <= MAX_LOGGED_SQL_LENGTH ? sql : sql.substring(0, MAX_LOGGED_SQL_LENGTH) + "...";
+    }
+
+    /**
+     * Header phải được đặt trước khi response commit, nên ghi số câu lệnh ngay khi body bắt đầu được ghi.
+     * Với JSON thông thường mọi truy vấn đã chạy xong lúc này; truy vấn phát sinh sau đó chỉ được tính vào metric.
+     */
+    private static final class CountHeaderResponse extends HttpServletResponseWrapper {
+
+        private final SqlStatementCounter.Scope scope;
+        private boolean written;
+
+        CountHeaderResponse(HttpServletResponse response, SqlStatementCounter.Scope scope) {
+            super(response);
+            this.scope = scope;
+        }
+
+        void writeHeader() {
+            if (!written && !isCommitted()) {
+                setHeader(HEADER, Integer.toString(scope.count()));
+            }
+            written = true;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeader();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.elearning.e_hub.common.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate gọi inspect() mỗi khi chuẩn bị một câu SQL; chỉ ghi nhận vào phạm vi đếm hiện tại, không sửa SQL.
+ */
+public class SqlStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlStatementCounter.record(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,21 @@
+package com.elearning.e_hub.common.util;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+
+/**
+ * Nhận diện ràng buộc bị vi phạm theo tên, để chỉ ánh xạ đúng lỗi nghiệp vụ (vd. email đã tồn tại)
+ * và ném lại mọi vi phạm khác (NOT NULL, CHECK, khóa chính trùng...).
+ * Postgres báo đúng tên constraint; H2 báo tên index sinh từ constraint (UK_USERS_EMAIL_INDEX_x) nên so khớp theo chuỗi con.
+ */
+public final class ConstraintViolations {
+
+    private ConstraintViolations() {
+    }
+
+    public static boolean violates(DataIntegrityViolationException e, String constraintName) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(constraintName.toLowerCase(Locale.ROOT));
+    }
+}
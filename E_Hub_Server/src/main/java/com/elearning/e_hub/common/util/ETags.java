@@ -0,0 +1,83 @@
+package com.elearning.e_hub.common.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * Strong ETag dựng từ version stamp (updated_at) thay vì băm nội dung response.
+ * Thời điểm được làm tròn xuống micro giây (độ chính xác của cột timestamp) để ETag tính từ entity
+ * vừa ghi và từ dữ liệu đọc lại sau đó luôn giống nhau.
+ */
+public final class ETags {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final int COMBINED_HASH_BYTES = 16;
+
+    private ETags() {
+    }
+
+    // null nếu chưa có version (bản ghi cũ chưa có updated_at): không trả ETag
+    public static String of(Long id, LocalDateTime version) {
+        if (id == null || version == null) {
+            return null;
+        }
+        return "\"" + Long.toString(id, 36) + '.' + Long.toString(micros(version), 36) + "\"";
+    }
+
+    /**
+     * ETag chung cho một trang danh sách: băm (id, version) của từng phần tử theo thứ tự,
+     * cùng scope mô tả phần còn lại của body (số trang, tổng, cursor, ...).
+     */
+    public static <T> String combine(String scope, Collection<T> items,
+                                     Function<T, Long> id, Function<T, LocalDateTime> version) {
+        MessageDigest digest = sha256();
+        digest.update(scope.getBytes(StandardCharsets.UTF_8));
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Long.BYTES);
+        for (T item : items) {
+            Long itemId = id.apply(item);
+            LocalDateTime itemVersion = version.apply(item);
+            buffer.clear();
+            buffer.putLong(itemId != null ? itemId : 0L);
+            buffer.putLong(itemVersion != null ? micros(itemVersion) : Long.MIN_VALUE);
+            digest.update(buffer.array());
+        }
+        return "\"" + ENCODER.encodeToString(Arrays.copyOf(digest.digest(), COMBINED_HASH_BYTES)) + "\"";
+    }
+
+    // So khớp If-None-Match theo kiểu weak comparison (RFC 9110): bỏ tiền tố W/, "*" khớp mọi ETag
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long micros(LocalDateTime value) {
+        return value.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + value.getNano() / 1_000;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.elearning.e_hub.common.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Chuẩn hóa chuỗi cho tìm kiếm không phân biệt dấu tiếng Việt và hoa/thường:
+ * "Nguyễn Đức Anh" -> "nguyen duc anh". Dữ liệu lưu trong cột search_text và từ khóa tìm kiếm
+ * phải đi qua cùng một hàm này.
+ */
+public final class SearchText {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SearchText() {
+    }
+
+    public static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        // đ/Đ không phải ký tự tổ hợp nên NFD không tách được, phải thay riêng
+        String decomposed = Normalizer.normalize(value.replace('đ', 'd').replace('Đ', 'D'), Normalizer.Form.NFD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        return WHITESPACE.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    public static String of(String fullName, String email) {
+        return normalize(fullName + " " + email);
+    }
+}
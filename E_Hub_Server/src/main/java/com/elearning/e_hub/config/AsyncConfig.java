@@ -0,0 +1,25 @@
+package com.elearning.e_hub.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    // Job import user chạy nền; hàng đợi nhỏ để từ chối (503) thay vì dồn hàng trăm job
+    @Bean(name = "userImportExecutor")
+    public ThreadPoolTaskExecutor userImportExecutor(
+            @Value("${user.import.concurrent-jobs:1}") int concurrentJobs,
+            @Value("${user.import.queue-capacity:4}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrentJobs);
+        executor.setMaxPoolSize(concurrentJobs);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("user-import-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
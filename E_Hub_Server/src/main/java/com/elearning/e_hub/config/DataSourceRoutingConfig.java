@@ -0,0 +1,109 @@
+package com.elearning.e_hub.config;
+
+import com.elearning.e_hub.common.datasource.ReadYourWritesTracker;
+import com.elearning.e_hub.common.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tách đọc/ghi khi bật datasource.routing.enabled: primary lấy từ spring.datasource (pool spring.datasource.hikari),
+ * mỗi URL trong replica-urls có pool riêng cùng cấu hình. Không khai báo replica thì mọi truy vấn vẫn đi tới primary.
+ * Tắt (mặc định) thì dùng DataSource tự cấu hình của Spring Boot như trước.
+ */
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "datasource.routing", name = "enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    private final ObjectProvider<ReplicaRoutingDataSource> replicaRoutingDataSource;
+
+    @Value("${datasource.routing.replica-urls:}")
+    private List<String> replicaUrls;
+
+    @Value("${datasource.routing.replica-username:}")
+    private String replicaUsername;
+
+    @Value("${datasource.routing.replica-password:}")
+    private String replicaPassword;
+
+    @Value("${datasource.routing.replica-connection-timeout:1000}")
+    private long replicaConnectionTimeout;
+
+    @Value("${datasource.routing.validation-timeout:2}")
+    private int validationTimeoutSeconds;
+
+    @Value("${datasource.routing.max-lag:0}")
+    private long maxLag;
+
+    @Value("${datasource.routing.lag-query:}")
+    private String lagQuery;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             ReadYourWritesTracker readYourWrites,
+                                                             MeterRegistry meterRegistry) {
+        List<ReplicaRoutingDataSource.Replica> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (!StringUtils.hasText(url)) {
+                continue;
+            }
+            String name = "replica-" + (replicas.size() + 1);
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setPoolName(name);
+            config.setJdbcUrl(url.trim());
+            if (StringUtils.hasText(replicaUsername)) {
+                config.setUsername(replicaUsername);
+                config.setPassword(replicaPassword);
+            }
+            config.setReadOnly(true);
+            // Replica chết phải bị loại nhanh rồi đọc lại trên primary, không chờ connectionTimeout của primary
+            config.setConnectionTimeout(replicaConnectionTimeout);
+            // Không chặn khởi động khi replica chưa sẵn sàng; health check sẽ loại nó khỏi vòng đọc
+            config.setInitializationFailTimeout(-1);
+            // Metrics hikaricp.* của primary do Spring Boot gắn đã được copy sang; chỉ gắn khi chưa có
+            if (config.getMetricsTrackerFactory() == null && config.getMetricRegistry() == null) {
+                config.setMetricRegistry(meterRegistry);
+            }
+            replicas.add(new ReplicaRoutingDataSource.Replica(name, new HikariDataSource(config)));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, readYourWrites, meterRegistry);
+    }
+
+    // JPA, JdbcTemplate và transaction manager đều dùng bean này
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.routing.health-check-interval:5000}")
+    public void checkReplicas() {
+        replicaRoutingDataSource.getObject().checkReplicas(validationTimeoutSeconds, lagQuery, maxLag);
+    }
+}
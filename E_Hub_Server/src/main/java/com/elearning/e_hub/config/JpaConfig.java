@@ -0,0 +1,20 @@
+package com.elearning.e_hub.config;
+
+import com.elearning.e_hub.common.metrics.SqlStatementInspector;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+
+// Bật @CreatedDate / @LastModifiedDate của BaseEntity; created_at là khóa seek của danh sách user
+@Configuration
+@EnableJpaAuditing
+public class JpaConfig {
+
+    // Đếm số câu SQL theo request (SqlStatementFilter)
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementInspectorCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementInspector());
+    }
+}
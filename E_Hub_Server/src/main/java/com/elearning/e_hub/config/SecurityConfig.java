@@ -1,37 +1,92 @@
 // src/main/java/com/elearning/e_hub/config/SecurityConfig.java
 package com.elearning.e_hub.config;
 
+import com.elearning.e_hub.security.BoundedPasswordEncoder;
+import com.elearning.e_hub.security.JwtAccessDeniedHandler;
 import com.elearning.e_hub.security.JwtAuthenticationFilter;
 import com.elearning.e_hub.security.JwtAuthenticationEntryPoint;
+import com.elearning.e_hub.security.ManagementPortRequestMatcher;
 import com.elearning.e_hub.security.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
+// @PreAuthorize bị từ chối ném AccessDeniedException trong controller: GlobalExceptionHandler trả 403;
+// từ chối trong filter chain đi qua JwtAccessDeniedHandler tới cùng handler đó
+@Slf4j
 @Configuration
+@EnableMethodSecurity
 public class SecurityConfig {
 
+    // Các endpoint không cần xác thực; JwtAuthenticationFilter cũng bỏ qua parse token cho các đường dẫn này
+    public static final String[] PUBLIC_ENDPOINTS = {
+        "/api/v1/auth/**"
+    };
+
+    // Health check của load balancer/orchestrator: không cần token.
+    // Vẫn đi qua JwtAuthenticationFilter để người gọi có token hợp lệ xem được chi tiết health
+    public static final String[] HEALTH_ENDPOINTS = {
+        "/actuator/health",
+        "/actuator/health/**"
+    };
+
+    // Prometheus scrape không cần token, nhưng chỉ trên cổng management nội bộ
+    public static final String PROMETHEUS_ENDPOINT = "/actuator/prometheus";
+
     @Autowired
     private JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
 
+    @Autowired
+    private JwtAccessDeniedHandler jwtAccessDeniedHandler;
+
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private ManagementPortRequestMatcher managementPort;
+
+    @Value("${security.password.bcrypt-cost:12}")
+    private int bcryptCost;
+
+    // > 0: đo phần cứng lúc khởi động và chọn cost có thời gian hash gần nhất dưới ngưỡng này
+    @Value("${security.password.calibrate-target-ms:0}")
+    private long calibrateTargetMs;
+
+    // 0: bằng số core
+    @Value("${security.password.hash-threads:0}")
+    private int hashThreads;
+
+    @Value("${security.password.hash-queue-capacity:64}")
+    private int hashQueueCapacity;
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+    public BoundedPasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        int cost = bcryptCost;
+        if (calibrateTargetMs > 0) {
+            cost = BoundedPasswordEncoder.calibrate(calibrateTargetMs);
+            log.info("Chọn BCrypt cost {} cho mục tiêu {} ms", cost, calibrateTargetMs);
+        }
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(cost, threads, hashQueueCapacity, meterRegistry);
     }
 
     @Bean
@@ -44,9 +99,16 @@ public class SecurityConfig {
         http
             .csrf(AbstractHttpConfigurer::disable)
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-            .exceptionHandling(ex -> ex.authenticationEntryPoint(jwtAuthenticationEntryPoint))
+            .exceptionHandling(ex -> ex
+                .authenticationEntryPoint(jwtAuthenticationEntryPoint)
+                .accessDeniedHandler(jwtAccessDeniedHandler))
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/api/v1/auth/**").permitAll()
+                // Dispatch async (StreamingResponseBody) thuộc request gốc đã được phân quyền
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                .requestMatchers(PUBLIC_ENDPOINTS).permitAll()
+                .requestMatchers(HttpMethod.GET, HEALTH_ENDPOINTS).permitAll()
+                .requestMatchers(new AndRequestMatcher(managementPort,
+                    AntPathRequestMatcher.antMatcher(HttpMethod.GET, PROMETHEUS_ENDPOINT))).permitAll()
                 .anyRequest().authenticated()
             )
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
@@ -0,0 +1,42 @@
+package com.elearning.e_hub.module.auth.dto;
+
+import com.elearning.e_hub.common.entity.Role;
+import com.elearning.e_hub.common.entity.Status;
+
+import java.util.Date;
+
+/**
+ * Kết quả của một lần parse + verify chữ ký JWT. Bất biến, dùng lại cho
+ * toàn bộ pipeline xác thực thay vì parse token nhiều lần.
+ * tokenType là claim phân biệt access/refresh token (null với token phát hành trước khi có claim này).
+ * userId, role, status chỉ có trong access token (null với refresh token hoặc token phát hành trước đây).
+ * tokenId (jti) chỉ có trong refresh token, dùng để phát hiện refresh token bị dùng lại.
+ */
+public record VerifiedToken(
+    String subject,
+    Long sessionId,
+    Date expiresAt,
+    String tokenId,
+    String tokenType,
+    Long userId,
+    Role role,
+    Status status
+) {
+    public static final String ACCESS = "access";
+    public static final String REFRESH = "refresh";
+
+    public boolean hasPrincipalClaims() {
+        return userId != null && role != null && status != null;
+    }
+
+    /**
+     * Access token không bao giờ mang jti; token cũ không có claim type được coi là access token nếu không có jti.
+     */
+    public boolean isAccessToken() {
+        return tokenId == null && (tokenType == null || ACCESS.equals(tokenType));
+    }
+
+    public boolean isRefreshToken() {
+        return tokenId != null && (tokenType == null || REFRESH.equals(tokenType));
+    }
+}
@@ -0,0 +1,60 @@
+package com.elearning.e_hub.module.auth.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email chờ gửi, được ghi trong cùng transaction với nghiệp vụ phát sinh ra nó.
+ * EmailOutboxDispatcher gửi theo lô ở background, thử lại với backoff và chuyển sang DEAD khi quá số lần;
+ * email SENT/DEAD bị xóa sau mail.outbox.retention.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "email_outbox", indexes = {
+    @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, next_attempt_at")
+})
+public class EmailOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private EmailTemplate template;
+
+    // Tham số điền vào template (ví dụ: reset token); bị xóa khi email chuyển sang SENT hoặc DEAD
+    @Column(length = 512)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    public enum Status {
+        PENDING,
+        SENT,
+        DEAD
+    }
+}
@@ -0,0 +1,5 @@
+package com.elearning.e_hub.module.auth.entity;
+
+public enum EmailTemplate {
+    PASSWORD_RESET
+}
@@ -15,8 +15,15 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @EqualsAndHashCode(callSuper = false)
-@Table(name = "sessions")
+@Table(name = "sessions", indexes = {
+    @Index(name = "idx_sessions_user_active", columnList = "user_id, is_active"),
+    @Index(name = "idx_sessions_expire_at", columnList = "expire_at"),
+    @Index(name = "idx_sessions_active_expire_at", columnList = "is_active, expire_at"),
+    @Index(name = "idx_sessions_login_at", columnList = "login_at")
+})
 public class Session {
+    // Mỗi login chỉ INSERT một session nên không có gì để gom batch: id do DB cấp ngay trong INSERT,
+    // không có round-trip nextval định kỳ (default của cột lấy từ sessions_seq, xem V4)
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -35,4 +42,8 @@ public class Session {
     @Column(name = "is_active")
     private Boolean isActive = true ;
 
+    // Thời điểm đăng nhập; SessionReaper đồng bộ sang users.last_login_at thay cho UPDATE users trong login
+    @Column(name = "login_at", updatable = false)
+    private LocalDateTime loginAt;
+
 }
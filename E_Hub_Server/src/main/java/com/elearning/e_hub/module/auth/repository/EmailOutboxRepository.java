@@ -0,0 +1,38 @@
+package com.elearning.e_hub.module.auth.repository;
+
+import com.elearning.e_hub.module.auth.entity.EmailOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // SELECT ... FOR UPDATE SKIP LOCKED (lock timeout -2): nhiều node cùng drain outbox mà không gửi trùng
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EmailOutbox e WHERE e.status = :status AND e.nextAttemptAt <= :now ORDER BY e.id")
+    List<EmailOutbox> findDueForUpdate(@Param("status") EmailOutbox.Status status,
+                                       @Param("now") LocalDateTime now,
+                                       Pageable pageable);
+
+    // Dọn email đã gửi/đã bỏ quá hạn giữ lại, mỗi lần gọi là một transaction ngắn
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            DELETE FROM email_outbox WHERE id IN (
+                SELECT id FROM email_outbox WHERE status IN ('SENT', 'DEAD') AND created_at < :before LIMIT :limit
+            )""")
+    int deleteFinishedBatch(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
@@ -6,7 +6,11 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -20,7 +24,37 @@ public interface SessionRepository extends JpaRepository<Session, Long> {
     @Query("DELETE FROM Session s WHERE s.user.id = :userId")
     void deleteByUserId(@Param("userId") Long userId);
 
+    @Query("SELECT s.id FROM Session s WHERE s.user.id = :userId AND s.isActive = true")
+    List<Long> findActiveSessionIdsByUserId(@Param("userId") Long userId);
+
     @Modifying
     @Query("UPDATE Session s SET s.isActive = false WHERE s.user.id = :userId")
     void deactivateAllUserSessions(@Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Session s SET s.isActive = false WHERE s.id = :id")
+    void deactivate(@Param("id") Long id);
+
+    @Query("SELECT DISTINCT s.user.id FROM Session s WHERE s.loginAt >= :since")
+    List<Long> findUserIdsLoggedInSince(@Param("since") LocalDateTime since);
+
+    // Đưa login_at mới nhất của các user sang users.last_login_at; chỉ ghi khi mới hơn giá trị đang có
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE User u SET u.lastLoginAt = (SELECT MAX(s.loginAt) FROM Session s WHERE s.user.id = u.id),
+                u.updatedAt = :now
+            WHERE u.id IN :userIds
+              AND (u.lastLoginAt IS NULL OR u.lastLoginAt < (SELECT MAX(s.loginAt) FROM Session s WHERE s.user.id = u.id))""")
+    int syncLastLoginAt(@Param("userIds") Collection<Long> userIds, @Param("now") LocalDateTime now);
+
+    // Xóa tối đa :limit session hết hạn hoặc không còn active, mỗi lần gọi là một transaction ngắn
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            DELETE FROM sessions WHERE id IN (
+                SELECT id FROM sessions WHERE expire_at < :now OR is_active = false LIMIT :limit
+            )""")
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
 }
@@ -0,0 +1,86 @@
+package com.elearning.e_hub.module.auth.scheduler;
+
+import com.elearning.e_hub.common.lock.DistributedLock;
+import com.elearning.e_hub.module.auth.service.EmailService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Drain email outbox theo lô. Mỗi lô được nhận trong một transaction ngắn (khóa dòng bằng SKIP LOCKED),
+ * gửi SMTP ngoài transaction rồi ghi kết quả trong transaction thứ hai, nên có thể chạy đồng thời trên nhiều node.
+ * Khi bật virtual thread: SMTPTransport của Jakarta Mail gửi thư trong khối synchronized nên pin carrier
+ * trong lúc gửi một lô; chấp nhận được vì mỗi node chỉ có một dispatcher chạy tại một thời điểm.
+ * Email đã gửi hoặc đã bỏ được xóa sau mail.outbox.retention, chỉ một node dọn tại một thời điểm nhờ khóa Redis.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmailOutboxDispatcher {
+
+    private static final String PURGE_LOCK_NAME = "email-outbox-purge";
+
+    private final EmailService emailService;
+    private final DistributedLock distributedLock;
+
+    @Value("${mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${mail.outbox.retention:604800000}")
+    private long retention;
+
+    @Value("${mail.outbox.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    @Value("${mail.outbox.purge-lock-ttl:600000}")
+    private long purgeLockTtl;
+
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval:2000}")
+    public void dispatch() {
+        try {
+            int processed;
+            do {
+                processed = emailService.dispatchPending(batchSize);
+            } while (processed == batchSize);
+        } catch (Exception e) {
+            log.error("Lỗi khi gửi email từ outbox: ", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.purge-interval:3600000}",
+            initialDelayString = "${mail.outbox.purge-initial-delay:60000}")
+    public void purge() {
+        String lockToken;
+        try {
+            lockToken = distributedLock.tryAcquire(PURGE_LOCK_NAME, Duration.ofMillis(purgeLockTtl));
+        } catch (Exception e) {
+            log.warn("Không thể lấy khóa dọn outbox: {}", e.getMessage());
+            return;
+        }
+        if (lockToken == null) {
+            return;
+        }
+
+        long purged = 0;
+        try {
+            LocalDateTime before = LocalDateTime.now().minus(Duration.ofMillis(retention));
+            int deleted;
+            do {
+                deleted = emailService.purgeFinished(before, purgeBatchSize);
+                purged += deleted;
+            } while (deleted == purgeBatchSize);
+        } catch (Exception e) {
+            log.error("Lỗi khi dọn email outbox: ", e);
+        } finally {
+            distributedLock.release(PURGE_LOCK_NAME, lockToken);
+        }
+        if (purged > 0) {
+            log.info("Đã xóa {} email đã gửi/đã bỏ khỏi outbox", purged);
+        }
+    }
+}
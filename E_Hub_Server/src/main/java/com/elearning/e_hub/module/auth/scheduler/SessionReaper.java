@@ -0,0 +1,117 @@
+package com.elearning.e_hub.module.auth.scheduler;
+
+import com.elearning.e_hub.common.lock.DistributedLock;
+import com.elearning.e_hub.module.auth.repository.SessionRepository;
+import com.elearning.e_hub.module.user.service.UserProfileCache;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Xóa các session đã hết hạn hoặc đã bị vô hiệu hóa theo từng lô nhỏ, mỗi lô một transaction ngắn
+ * để không giữ lock lâu trên bảng sessions. Chỉ một node chạy tại một thời điểm nhờ khóa Redis.
+ * Trước khi xóa, đồng bộ login_at của các session mới sang users.last_login_at (login không UPDATE users),
+ * nên last_login_at trễ tối đa một chu kỳ reaper.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SessionReaper {
+
+    private static final String LOCK_NAME = "session-reaper";
+    // Lùi mốc đồng bộ để không bỏ sót login có login_at trước mốc nhưng commit sau lần chạy trước
+    private static final Duration LOGIN_SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private final SessionRepository sessionRepository;
+    private final UserProfileCache profileCache;
+    private final DistributedLock distributedLock;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${session.reaper.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${session.reaper.max-batches:100}")
+    private int maxBatches;
+
+    @Value("${session.reaper.lock-ttl:600000}")
+    private long lockTtl;
+
+    @Value("${jwt.refresh-token-ttl}")
+    private long refreshTokenTtl;
+
+    private DistributionSummary purgedPerRun;
+
+    // Mốc của lần đồng bộ thành công gần nhất trên node này; null: quét mọi session còn có thể sống
+    private LocalDateTime loginsSyncedAt;
+
+    @PostConstruct
+    void init() {
+        this.purgedPerRun = DistributionSummary.builder("session.reaper.purged")
+                .description("Số session bị xóa mỗi lần chạy")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${session.reaper.interval:300000}",
+            initialDelayString = "${session.reaper.initial-delay:60000}")
+    public void purge() {
+        String lockToken;
+        try {
+            lockToken = distributedLock.tryAcquire(LOCK_NAME, Duration.ofMillis(lockTtl));
+        } catch (Exception e) {
+            log.warn("Không thể lấy khóa session reaper: {}", e.getMessage());
+            return;
+        }
+        if (lockToken == null) {
+            return;
+        }
+
+        long started = System.nanoTime();
+        long purged = 0;
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            syncLastLogins(now);
+            for (int batch = 0; batch < maxBatches; batch++) {
+                int deleted = sessionRepository.deleteExpiredBatch(now, batchSize);
+                purged += deleted;
+                if (deleted < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Lỗi khi dọn session hết hạn: ", e);
+        } finally {
+            distributedLock.release(LOCK_NAME, lockToken);
+        }
+
+        purgedPerRun.record(purged);
+        log.info("Session reaper đã xóa {} session trong {} ms", purged, Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    // Phải chạy trước khi xóa: session đã logout (is_active = false) vẫn giữ login_at tới lúc này
+    private void syncLastLogins(LocalDateTime now) {
+        LocalDateTime since = loginsSyncedAt != null
+                ? loginsSyncedAt.minus(LOGIN_SYNC_OVERLAP)
+                : now.minus(Duration.ofMillis(refreshTokenTtl));
+        List<Long> userIds = sessionRepository.findUserIdsLoggedInSince(since);
+        int updated = 0;
+        for (int from = 0; from < userIds.size(); from += batchSize) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + batchSize, userIds.size()));
+            updated += sessionRepository.syncLastLoginAt(chunk, now);
+            // lastLoginAt nằm trong profile đã cache
+            chunk.forEach(profileCache::evict);
+        }
+        loginsSyncedAt = now;
+        if (updated > 0) {
+            log.info("Session reaper đã cập nhật last_login_at cho {} user", updated);
+        }
+    }
+}
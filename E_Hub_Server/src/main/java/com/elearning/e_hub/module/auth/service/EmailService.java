@@ -1,5 +1,28 @@
 package com.elearning.e_hub.module.auth.service;
 
+import java.time.LocalDateTime;
+
 public interface EmailService {
+    /**
+     * Ghi email khôi phục mật khẩu vào outbox trong transaction hiện tại; việc gửi SMTP diễn ra ở background
+     */
     void sendPasswordResetEmail(String email, String resetToken);
+
+    /**
+     * Gửi một lô email đến hạn trong outbox qua một kết nối SMTP.
+     * Nhận lô và ghi kết quả là hai transaction riêng, không giữ khóa dòng trong lúc gửi
+     *
+     * @param batchSize số email tối đa trong lô
+     * @return số email đã lấy ra xử lý (gửi thành công hoặc thất bại)
+     */
+    int dispatchPending(int batchSize);
+
+    /**
+     * Xóa một lô email đã gửi (SENT) hoặc đã bỏ (DEAD) tạo trước thời điểm before
+     *
+     * @param before    mốc giữ lại
+     * @param batchSize số dòng tối đa bị xóa
+     * @return số dòng đã xóa
+     */
+    int purgeFinished(LocalDateTime before, int batchSize);
 }
@@ -1,11 +1,21 @@
 package com.elearning.e_hub.module.auth.service;
 
+import com.elearning.e_hub.module.auth.dto.VerifiedToken;
 import com.elearning.e_hub.module.user.entity.User;
+import com.elearning.e_hub.security.UserPrincipal;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 
 public interface JwtService {
+    /**
+     * Parse và verify chữ ký JWT đúng một lần
+     *
+     * @param token JWT token
+     * @return thông tin đã xác thực, null nếu token sai chữ ký, sai định dạng hoặc đã hết hạn
+     */
+    VerifiedToken verifyToken(String token);
+
     /**
      * Trích xuất username từ JWT token
      *
@@ -43,21 +53,23 @@ public interface JwtService {
     String generateToken(User user, Long sessionId);
 
     /**
-     * Tạo JWT refresh token cho user
+     * Tạo JWT access token từ principal (không cần entity User, dùng khi refresh)
      *
-     * @param user     thông tin user
+     * @param principal thông tin user
      * @param sessionId id của session
-     * @return JWT refresh token
+     * @return JWT access token
      */
-    String generateRefreshToken(User user, Long sessionId);
+    String generateToken(UserPrincipal principal, Long sessionId);
 
     /**
-     * Validate refresh token và trả về sessionId
+     * Tạo JWT refresh token cho user
      *
-     * @param refreshToken refresh token cần validate
-     * @return sessionId nếu token hợp lệ, null nếu không
+     * @param subject   email của user
+     * @param sessionId id của session (cũng là id của token family)
+     * @param tokenId   id duy nhất của refresh token (jti), đổi sau mỗi lần rotate
+     * @return JWT refresh token
      */
-    String validateRefreshToken(String refreshToken);
+    String generateRefreshToken(String subject, Long sessionId, String tokenId);
 
     /**
      * Trích xuất sessionId từ JWT token
@@ -73,4 +85,11 @@ public interface JwtService {
      * @return thời gian tính bằng milliseconds
      */
     long getAccessTokenTTL();
+
+    /**
+     * Lấy thời gian hết hạn của refresh token
+     *
+     * @return thời gian tính bằng milliseconds
+     */
+    long getRefreshTokenTTL();
 }
\ No newline at end of file
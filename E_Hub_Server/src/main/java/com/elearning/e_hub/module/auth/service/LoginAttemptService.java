@@ -0,0 +1,27 @@
+package com.elearning.e_hub.module.auth.service;
+
+public interface LoginAttemptService {
+    /**
+     * Kiểm tra (không ghi nhận) trước khi xác thực, ném AppException (429) nếu email hoặc IP
+     * đã có quá nhiều lần đăng nhập sai trong cửa sổ
+     *
+     * @param email    email đăng nhập
+     * @param clientIp địa chỉ IP của client
+     */
+    void checkAllowed(String email, String clientIp);
+
+    /**
+     * Ghi nhận một lần đăng nhập sai cho cả email và IP
+     *
+     * @param email    email đăng nhập
+     * @param clientIp địa chỉ IP của client
+     */
+    void recordFailure(String email, String clientIp);
+
+    /**
+     * Đăng nhập thành công: xóa các lần sai đã ghi nhận của email
+     *
+     * @param email email đăng nhập
+     */
+    void recordSuccess(String email);
+}
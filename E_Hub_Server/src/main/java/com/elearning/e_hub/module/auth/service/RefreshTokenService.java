@@ -0,0 +1,38 @@
+package com.elearning.e_hub.module.auth.service;
+
+import com.elearning.e_hub.module.auth.entity.Session;
+import com.elearning.e_hub.module.user.entity.User;
+import com.elearning.e_hub.security.UserPrincipal;
+
+import java.util.Collection;
+
+public interface RefreshTokenService {
+    /**
+     * Tạo token family cho session mới và trả về refresh token đầu tiên.
+     * Family hết hạn đúng lúc session hết hạn (expireAt), rotate không gia hạn.
+     *
+     * @param user    user vừa đăng nhập/đăng ký
+     * @param session session vừa tạo; id của session cũng là id của family
+     * @return JWT refresh token
+     */
+    String startFamily(User user, Session session);
+
+    /**
+     * Rotate refresh token: token cũ bị vô hiệu, token mới được phát hành.
+     * Nếu token trình ra không phải token mới nhất của family (bị dùng lại), cả family bị thu hồi.
+     *
+     * @param sessionId id của family
+     * @param tokenId   jti của refresh token trình ra
+     * @return principal lưu trong family cùng refresh token mới
+     */
+    Rotation rotate(Long sessionId, String tokenId);
+
+    /**
+     * Thu hồi các token family (logout, đổi/reset mật khẩu, đổi email, xóa user)
+     *
+     * @param sessionIds id của các family
+     */
+    void revokeFamilies(Collection<Long> sessionIds);
+
+    record Rotation(UserPrincipal principal, String refreshToken) {}
+}
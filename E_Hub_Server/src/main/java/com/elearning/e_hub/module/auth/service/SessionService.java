@@ -0,0 +1,18 @@
+package com.elearning.e_hub.module.auth.service;
+
+public interface SessionService {
+    /**
+     * Đăng xuất user khỏi mọi thiết bị: thu hồi access token và refresh token family của các session đang active
+     * rồi vô hiệu hóa chúng (SessionReaper xóa sau). Gọi khi đổi/reset mật khẩu hoặc đổi email.
+     *
+     * @param userId id của user
+     */
+    void revokeAll(Long userId);
+
+    /**
+     * Như revokeAll nhưng xóa hẳn các session; gọi trước khi xóa user (khóa ngoại sessions.user_id)
+     *
+     * @param userId id của user
+     */
+    void deleteAll(Long userId);
+}
@@ -1,27 +1,41 @@
 package com.elearning.e_hub.module.auth.service.impl;
 
+import com.elearning.e_hub.common.annotation.LogExecution;
+import com.elearning.e_hub.common.datasource.ReadYourWritesTracker;
 import com.elearning.e_hub.common.exception.AppException;
 import com.elearning.e_hub.common.exception.ErrorCode;
+import com.elearning.e_hub.common.util.ConstraintViolations;
 import com.elearning.e_hub.module.auth.dto.LoginRequest;
 import com.elearning.e_hub.module.auth.dto.SignupRequest;
 import com.elearning.e_hub.module.auth.dto.TokenResponse;
+import com.elearning.e_hub.module.auth.dto.VerifiedToken;
 import com.elearning.e_hub.module.auth.entity.Session;
 import com.elearning.e_hub.module.auth.repository.SessionRepository;
 import com.elearning.e_hub.module.auth.service.AuthService;
 import com.elearning.e_hub.module.auth.service.EmailService;
 import com.elearning.e_hub.module.auth.service.JwtService;
+import com.elearning.e_hub.module.auth.service.RefreshTokenService;
+import com.elearning.e_hub.module.auth.service.SessionService;
 import com.elearning.e_hub.module.user.entity.User;
 import com.elearning.e_hub.module.user.repository.UserRepository;
+import com.elearning.e_hub.module.user.service.UserProfileCache;
+import com.elearning.e_hub.security.CustomUserDetails;
+import com.elearning.e_hub.security.PrincipalCache;
+import com.elearning.e_hub.security.SessionRevocationRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Slf4j
@@ -31,107 +45,127 @@ public class AuthServiceImpl implements AuthService {
 
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
+    private final RefreshTokenService refreshTokenService;
     private final UserRepository userRepository;
     private final SessionRepository sessionRepository;
     private final PasswordEncoder passwordEncoder;
     private final EmailService emailService;
     private final RedisTemplate<String, String> redisTemplate;
+    private final PrincipalCache principalCache;
+    private final UserProfileCache profileCache;
+    private final SessionRevocationRegistry revocationRegistry;
+    private final SessionService sessionService;
+    private final ReadYourWritesTracker readYourWrites;
 
     private static final Duration PASSWORD_RESET_TTL = Duration.ofMinutes(15);
+
+    // Lỗi dự kiến có message cố định: dựng sẵn một lần, không stack trace
+    private static final AppException EMAIL_TAKEN =
+            AppException.cached(ErrorCode.EMAIL_ALREADY_EXISTS, "Email đã được sử dụng cho tài khoản khác");
+    private static final AppException REFRESH_TOKEN_INVALID =
+            AppException.cached(ErrorCode.TOKEN_EXPIRED, "Token làm mới không hợp lệ hoặc đã hết hạn");
+    private static final AppException RESET_TOKEN_INVALID =
+            AppException.cached(ErrorCode.INVALID_TOKEN, "Token không hợp lệ hoặc đã hết hạn");
+    private static final AppException EMAIL_NOT_FOUND =
+            AppException.cached(ErrorCode.USER_NOT_FOUND, "Email không tồn tại trong hệ thống");
+    private static final AppException USER_NOT_FOUND =
+            AppException.cached(ErrorCode.USER_NOT_FOUND, "Không tìm thấy người dùng");
     private static final String PASSWORD_RESET_PREFIX = "password:reset:";
 
     @Override
     @Transactional
+    @LogExecution
     public TokenResponse login(LoginRequest request) {
-        // Xác thực credentials và ném BadCredentialsException nếu sai
-        authenticationManager.authenticate(
+        // Xác thực credentials và ném BadCredentialsException nếu sai.
+        // User do authentication provider nạp nằm trong persistence context của transaction này, dùng lại luôn
+        Authentication authentication = authenticationManager.authenticate(
             new UsernamePasswordAuthenticationToken(request.email(), request.password())
         );
+        User user = ((CustomUserDetails) authentication.getPrincipal()).getUser();
 
-        // Lấy thông tin user
-        User user = userRepository.findByEmail(request.email())
-                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND, "Người dùng không tồn tại"));
-
-        // Tạo session mới
-        Session session = new Session();
-        session.setUser(user);
-        session.setToken(UUID.randomUUID().toString());
-        session.setIsActive(true); // Đảm bảo set isActive
-        session = sessionRepository.save(session);
-
-        // Generate JWT tokens
-        String accessToken = jwtService.generateToken(user, session.getId());
-        String refreshToken = jwtService.generateRefreshToken(user, session.getId());
-
-        return new TokenResponse(accessToken, refreshToken, jwtService.getAccessTokenTTL());
+        // Chỉ SELECT user + INSERT session: thời điểm đăng nhập nằm trên session (login_at),
+        // SessionReaper đồng bộ sang users.last_login_at theo lô thay cho một UPDATE users mỗi lần login
+        return issueTokens(user, createSession(user));
     }
 
     @Override
     @Transactional
+    @LogExecution
     public TokenResponse signup(SignupRequest request) {
-        // Kiểm tra email tồn tại
-        if (userRepository.existsByEmail(request.email())) {
-            throw new AppException(ErrorCode.EMAIL_ALREADY_EXISTS, "Email đã được sử dụng cho tài khoản khác");
-        }
-
-        // Tạo user mới
+        // Tạo user mới; unique constraint trên email thay cho truy vấn kiểm tra trước
         User user = new User();
         user.setEmail(request.email());
         user.setPassword(passwordEncoder.encode(request.password()));
         user.setFullName(request.fullName());
-        userRepository.save(user);
+        try {
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            // Chỉ vi phạm unique email là lỗi nghiệp vụ; vi phạm khác (vd. trùng khóa chính) là lỗi hệ thống
+            if (ConstraintViolations.violates(e, User.EMAIL_UNIQUE_CONSTRAINT)) {
+                throw EMAIL_TAKEN;
+            }
+            throw e;
+        }
+        readYourWrites.recordWrite(user.getId());
 
-        // Tạo session mới
+        return issueTokens(user, createSession(user));
+    }
+
+    // Tạo session mới; id do DB cấp trong chính câu INSERT
+    private Session createSession(User user) {
+        LocalDateTime now = LocalDateTime.now();
         Session session = new Session();
         session.setUser(user);
         session.setToken(UUID.randomUUID().toString());
         session.setIsActive(true); // Đảm bảo set isActive
-        session = sessionRepository.save(session);
+        session.setLoginAt(now);
+        session.setExpireAt(now.plus(Duration.ofMillis(jwtService.getRefreshTokenTTL())));
+        return sessionRepository.save(session);
+    }
 
-        // Generate JWT tokens
+    private TokenResponse issueTokens(User user, Session session) {
         String accessToken = jwtService.generateToken(user, session.getId());
-        String refreshToken = jwtService.generateRefreshToken(user, session.getId());
-
+        String refreshToken = refreshTokenService.startFamily(user, session);
         return new TokenResponse(accessToken, refreshToken, jwtService.getAccessTokenTTL());
     }
 
     @Override
-    @Transactional
+    @LogExecution
     public TokenResponse refreshToken(String refreshToken) {
-        // Validate refresh token
-        String sessionId = jwtService.validateRefreshToken(refreshToken);
-        if (sessionId == null) {
-            throw new AppException(ErrorCode.TOKEN_EXPIRED, "Token làm mới không hợp lệ hoặc đã hết hạn");
+        // Validate refresh token (chữ ký, hạn dùng, đúng loại refresh và phải có jti)
+        VerifiedToken verified = jwtService.verifyToken(refreshToken);
+        if (verified == null || verified.sessionId() == null || !verified.isRefreshToken()) {
+            throw REFRESH_TOKEN_INVALID;
         }
 
-        // Lấy session và user
-        Session session = sessionRepository.findById(Long.parseLong(sessionId))
-                .orElseThrow(() -> new AppException(ErrorCode.TOKEN_EXPIRED, "Phiên làm mới không tồn tại"));
-
-        User user = session.getUser();
+        // Rotate trong Redis: một round-trip, không truy vấn Postgres
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(verified.sessionId(), verified.tokenId());
+        String newAccessToken = jwtService.generateToken(rotation.principal(), verified.sessionId());
 
-        // Generate new tokens
-        String newAccessToken = jwtService.generateToken(user, Long.valueOf(sessionId));
-        String newRefreshToken = jwtService.generateRefreshToken(user, Long.valueOf(sessionId));
-
-        return new TokenResponse(newAccessToken, newRefreshToken, jwtService.getAccessTokenTTL());
+        return new TokenResponse(newAccessToken, rotation.refreshToken(), jwtService.getAccessTokenTTL());
     }
 
     @Override
     @Transactional
+    @LogExecution
     public void logout(String accessToken) {
         String sessionId = jwtService.extractSessionId(accessToken);
         if (sessionId != null) {
-            sessionRepository.deleteById(Long.parseLong(sessionId));
+            // Chỉ vô hiệu hóa (một UPDATE): SessionReaper đồng bộ login_at sang user rồi mới xóa dòng
+            sessionRepository.deactivate(Long.valueOf(sessionId));
+            // Access token của session này bị từ chối ngay trên mọi node, refresh token family bị xóa
+            revocationRegistry.revoke(Long.valueOf(sessionId));
+            refreshTokenService.revokeFamilies(List.of(Long.valueOf(sessionId)));
         }
     }
 
     @Override
     @Transactional
+    @LogExecution
     public void forgotPassword(String email) {
         // Kiểm tra user tồn tại
         User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND, "Email không tồn tại trong hệ thống"));
+                .orElseThrow(() -> EMAIL_NOT_FOUND);
 
         // Tạo token reset password
         String resetToken = UUID.randomUUID().toString();
@@ -146,6 +180,7 @@ public class AuthServiceImpl implements AuthService {
 
     @Override
     @Transactional
+    @LogExecution
     public void resetPassword(String token, String newPassword) {
         String redisKey = PASSWORD_RESET_PREFIX + token;
         log.info("Checking reset token: {}", redisKey);
@@ -155,13 +190,13 @@ public class AuthServiceImpl implements AuthService {
 
         if (email == null) {
             log.warn("Token not found or expired: {}", token);
-            throw new AppException(ErrorCode.INVALID_TOKEN, "Token không hợp lệ hoặc đã hết hạn");
+            throw RESET_TOKEN_INVALID;
         }
 
         try {
             // Cập nhật mật khẩu mới
             User user = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND, "Không tìm thấy người dùng"));
+                    .orElseThrow(() -> USER_NOT_FOUND);
 
             user.setPassword(passwordEncoder.encode(newPassword));
             userRepository.save(user);
@@ -171,9 +206,16 @@ public class AuthServiceImpl implements AuthService {
             redisTemplate.delete(redisKey);
             log.info("Reset token deleted from Redis: {}", redisKey);
 
-            // Vô hiệu hóa tất cả session hiện tại của user
-            sessionRepository.deactivateAllUserSessions(user.getId());
+            // Vô hiệu hóa tất cả session hiện tại của user và thu hồi access/refresh token tương ứng
+            sessionService.revokeAll(user.getId());
             log.info("All sessions deactivated for user: {}", email);
+
+            // Invalidate principal đã cache trên mọi node
+            principalCache.evict(email);
+            profileCache.evict(user.getId());
+        } catch (AppException e) {
+            // USER_NOT_FOUND, SERVICE_BUSY (hash quá tải) giữ nguyên status thay vì thành lỗi 500
+            throw e;
         } catch (Exception e) {
             log.error("Error during password reset: ", e);
             throw new AppException(ErrorCode.INTERNAL_ERROR, "Có lỗi xảy ra khi cập nhật mật khẩu: " + e.getMessage());
@@ -1,27 +1,197 @@
 package com.elearning.e_hub.module.auth.service.impl;
 
+import com.elearning.e_hub.common.annotation.LogExecution;
+import com.elearning.e_hub.module.auth.entity.EmailOutbox;
+import com.elearning.e_hub.module.auth.entity.EmailTemplate;
+import com.elearning.e_hub.module.auth.repository.EmailOutboxRepository;
 import com.elearning.e_hub.module.auth.service.EmailService;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class EmailServiceImpl implements EmailService {
 
     private final JavaMailSender mailSender;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final PlatformTransactionManager transactionManager;
     private static final String FROM_EMAIL = "noreply@elearning.com";
     private static final String RESET_PASSWORD_SUBJECT = "Khôi phục mật khẩu E-Learning";
+    private static final String PAYLOAD_PLACEHOLDER = "%s";
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Value("${mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${mail.outbox.initial-backoff:30000}")
+    private long initialBackoff;
+
+    @Value("${mail.outbox.max-backoff:3600000}")
+    private long maxBackoff;
+
+    // Thời gian một lô đã nhận được coi là đang gửi; phải dài hơn thời gian gửi cả lô qua SMTP
+    @Value("${mail.outbox.send-lease:300000}")
+    private long sendLease;
+
+    private TransactionTemplate transactionTemplate;
+
+    // Template được render sẵn một lần khi khởi động, lúc gửi chỉ còn nối chuỗi
+    private final Map<EmailTemplate, RenderedTemplate> templates = new EnumMap<>(EmailTemplate.class);
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        renderTemplates();
+    }
+
+    private void renderTemplates() {
+        templates.put(EmailTemplate.PASSWORD_RESET,
+                RenderedTemplate.of(RESET_PASSWORD_SUBJECT, buildResetPasswordEmailContent(PAYLOAD_PLACEHOLDER)));
+    }
 
     @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    @LogExecution
     public void sendPasswordResetEmail(String email, String resetToken) {
+        LocalDateTime now = LocalDateTime.now();
+        EmailOutbox outbox = new EmailOutbox();
+        outbox.setRecipient(email);
+        outbox.setTemplate(EmailTemplate.PASSWORD_RESET);
+        outbox.setPayload(resetToken);
+        outbox.setCreatedAt(now);
+        outbox.setNextAttemptAt(now);
+        emailOutboxRepository.save(outbox);
+    }
+
+    @Override
+    @LogExecution
+    public int dispatchPending(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        // Cắt về mili giây để so khớp được với giá trị đọc lại từ DB khi ghi kết quả
+        LocalDateTime leaseUntil = now.plus(Duration.ofMillis(sendLease)).truncatedTo(ChronoUnit.MILLIS);
+        // Transaction ngắn: khóa SKIP LOCKED chỉ giữ tới khi lô được nhận (next_attempt_at = hết lease) và commit,
+        // không kéo dài qua lúc gửi SMTP. Node chết giữa chừng thì email đến hạn lại khi hết lease
+        List<EmailOutbox> batch = transactionTemplate.execute(status -> claim(now, leaseUntil, batchSize));
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        SimpleMailMessage[] messages = batch.stream().map(this::render).toArray(SimpleMailMessage[]::new);
+        Map<Object, Exception> failures = Map.of();
+        try {
+            // JavaMailSenderImpl gửi toàn bộ mảng qua một kết nối SMTP
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            // Không có message nào bị lỗi nghĩa là lỗi chỉ xảy ra khi đóng kết nối, email đã được server nhận
+            failures = e.getFailedMessages();
+            if (failures.isEmpty()) {
+                log.warn("Lỗi khi đóng kết nối SMTP sau khi gửi: {}", e.getMessage());
+            }
+        } catch (MailException e) {
+            failures = allFailed(messages, e);
+        }
+
+        Map<Long, Exception> failuresById = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Exception failure = failures.get(messages[i]);
+            if (failure != null) {
+                failuresById.put(batch.get(i).getId(), failure);
+            }
+        }
+        LocalDateTime finishedAt = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status ->
+                recordResults(batch.stream().map(EmailOutbox::getId).toList(), failuresById, leaseUntil, finishedAt));
+        return batch.size();
+    }
+
+    private List<EmailOutbox> claim(LocalDateTime now, LocalDateTime leaseUntil, int batchSize) {
+        List<EmailOutbox> batch = emailOutboxRepository.findDueForUpdate(
+                EmailOutbox.Status.PENDING, now, PageRequest.of(0, batchSize));
+        batch.forEach(outbox -> outbox.setNextAttemptAt(leaseUntil));
+        return batch;
+    }
+
+    private void recordResults(List<Long> ids, Map<Long, Exception> failures, LocalDateTime leaseUntil,
+                               LocalDateTime now) {
+        for (EmailOutbox outbox : emailOutboxRepository.findAllById(ids)) {
+            if (outbox.getStatus() != EmailOutbox.Status.PENDING || !leaseUntil.equals(outbox.getNextAttemptAt())) {
+                // Lease đã hết và lô được node khác nhận lại: kết quả thuộc về lần gửi đó
+                continue;
+            }
+            Exception failure = failures.get(outbox.getId());
+            if (failure == null) {
+                outbox.setStatus(EmailOutbox.Status.SENT);
+                outbox.setSentAt(now);
+                // Token trong payload không còn cần sau khi gửi, không để nằm lại trong DB
+                outbox.setPayload(null);
+            } else {
+                markFailed(outbox, failure, now);
+            }
+        }
+    }
+
+    @Override
+    @LogExecution
+    public int purgeFinished(LocalDateTime before, int batchSize) {
+        return emailOutboxRepository.deleteFinishedBatch(before, batchSize);
+    }
+
+    private SimpleMailMessage render(EmailOutbox outbox) {
+        RenderedTemplate template = templates.get(outbox.getTemplate());
         SimpleMailMessage message = new SimpleMailMessage();
         message.setFrom(FROM_EMAIL);
-        message.setTo(email);
-        message.setSubject(RESET_PASSWORD_SUBJECT);
-        message.setText(buildResetPasswordEmailContent(resetToken));
-        mailSender.send(message);
+        message.setTo(outbox.getRecipient());
+        message.setSubject(template.subject());
+        message.setText(template.render(outbox.getPayload()));
+        return message;
+    }
+
+    private void markFailed(EmailOutbox outbox, Exception failure, LocalDateTime now) {
+        int attempts = outbox.getAttempts() + 1;
+        outbox.setAttempts(attempts);
+        String error = String.valueOf(failure.getMessage());
+        outbox.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        if (attempts >= maxAttempts) {
+            outbox.setStatus(EmailOutbox.Status.DEAD);
+            outbox.setPayload(null);
+            log.error("Email {} tới {} chuyển sang dead-letter sau {} lần thử: {}",
+                    outbox.getId(), outbox.getRecipient(), attempts, error);
+            return;
+        }
+        // Exponential backoff: initial, 2x, 4x, ... tối đa maxBackoff
+        long backoff = Math.min(maxBackoff, initialBackoff << Math.min(attempts - 1, 20));
+        outbox.setNextAttemptAt(now.plus(Duration.ofMillis(backoff)));
+        log.warn("Gửi email {} thất bại (lần {}), thử lại sau {} ms: {}", outbox.getId(), attempts, backoff, error);
+    }
+
+    private static Map<Object, Exception> allFailed(SimpleMailMessage[] messages, Exception e) {
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        for (SimpleMailMessage message : messages) {
+            failures.put(message, e);
+        }
+        return failures;
     }
 
     private String buildResetPasswordEmailContent(String resetToken) {
@@ -41,5 +211,15 @@ public class EmailServiceImpl implements EmailService {
             E-Learning Team
             """, resetToken);
     }
-}
 
+    private record RenderedTemplate(String subject, String prefix, String suffix) {
+        static RenderedTemplate of(String subject, String body) {
+            int index = body.indexOf(PAYLOAD_PLACEHOLDER);
+            return new RenderedTemplate(subject, body.substring(0, index), body.substring(index + PAYLOAD_PLACEHOLDER.length()));
+        }
+
+        String render(String payload) {
+            return prefix + payload + suffix;
+        }
+    }
+}
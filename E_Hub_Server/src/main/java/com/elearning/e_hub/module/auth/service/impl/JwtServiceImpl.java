@@ -1,10 +1,17 @@
 package com.elearning.e_hub.module.auth.service.impl;
 
+import com.elearning.e_hub.common.entity.Role;
+import com.elearning.e_hub.common.entity.Status;
+import com.elearning.e_hub.module.auth.dto.VerifiedToken;
 import com.elearning.e_hub.module.auth.service.JwtService;
 import com.elearning.e_hub.module.user.entity.User;
+import com.elearning.e_hub.security.UserPrincipal;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -29,10 +36,45 @@ public class JwtServiceImpl implements JwtService {
     private long refreshTokenTTL;
 
     private static final String SESSION_ID_CLAIM = "sessionId";
+    private static final String USER_ID_CLAIM = "userId";
+    private static final String ROLE_CLAIM = "role";
+    private static final String STATUS_CLAIM = "status";
+    private static final String TOKEN_TYPE_CLAIM = "tokenType";
+
+    // Key và parser được tạo một lần khi khởi động; JwtParser bất biến nên dùng chung an toàn giữa các thread
+    private Key signKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
+        this.signKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signKey)
+                .build();
+    }
 
-    // Lấy key từ secret
-    private Key getSignKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    // 0. Parse + verify token một lần duy nhất
+    @Override
+    public VerifiedToken verifyToken(String token) {
+        try {
+            Claims claims = extractAllClaims(token);
+            String sessionId = claims.get(SESSION_ID_CLAIM, String.class);
+            String role = claims.get(ROLE_CLAIM, String.class);
+            String status = claims.get(STATUS_CLAIM, String.class);
+            return new VerifiedToken(
+                    claims.getSubject(),
+                    sessionId != null ? Long.valueOf(sessionId) : null,
+                    claims.getExpiration(),
+                    claims.getId(),
+                    claims.get(TOKEN_TYPE_CLAIM, String.class),
+                    claims.get(USER_ID_CLAIM, Long.class),
+                    role != null ? Role.valueOf(role) : null,
+                    status != null ? Status.valueOf(status) : null
+            );
+        } catch (JwtException | IllegalArgumentException e) {
+            // Token không hợp lệ hoặc hết hạn (parser đã kiểm tra exp)
+            return null;
+        }
     }
 
     // 1. Trích xuất username từ JWT
@@ -42,8 +84,8 @@ public class JwtServiceImpl implements JwtService {
 
     // 2. Kiểm tra token hợp lệ
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        VerifiedToken verified = verifyToken(token);
+        return verified != null && verified.subject().equals(userDetails.getUsername());
     }
 
     // 3. Tạo AuthenticationToken từ JWT
@@ -55,37 +97,28 @@ public class JwtServiceImpl implements JwtService {
         );
     }
 
-    // 4. Tạo token mới cho người dùng
+    // 4. Tạo token mới cho người dùng (kèm userId, role, status để filter dựng principal không cần DB)
     @Override
     public String generateToken(User user, Long sessionId) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put(SESSION_ID_CLAIM, sessionId.toString());
-        return createToken(claims, user.getEmail(), accessTokenTTL);
+        return createAccessToken(user.getId(), user.getEmail(), user.getRole(), user.getStatus(), sessionId);
     }
 
-    // 5. Tạo refresh token cho người dùng
     @Override
-    public String generateRefreshToken(User user, Long sessionId) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put(SESSION_ID_CLAIM, sessionId.toString());
-        return createToken(claims, user.getEmail(), refreshTokenTTL);
+    public String generateToken(UserPrincipal principal, Long sessionId) {
+        return createAccessToken(principal.getId(), principal.getEmail(), principal.getRole(), principal.getStatus(), sessionId);
     }
 
-    // 6. Xác thực refresh token
+    // 5. Tạo refresh token cho người dùng (jti đổi sau mỗi lần rotate)
     @Override
-    public String validateRefreshToken(String refreshToken) {
-        try {
-            Claims claims = extractAllClaims(refreshToken);
-            if (!isTokenExpired(refreshToken)) {
-                return claims.get(SESSION_ID_CLAIM, String.class);
-            }
-        } catch (Exception e) {
-            // Token không hợp lệ hoặc hết hạn
-        }
-        return null;
+    public String generateRefreshToken(String subject, Long sessionId, String tokenId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(SESSION_ID_CLAIM, sessionId.toString());
+        claims.put(Claims.ID, tokenId);
+        claims.put(TOKEN_TYPE_CLAIM, VerifiedToken.REFRESH);
+        return createToken(claims, subject, refreshTokenTTL);
     }
 
-    // 7. Trích xuất sessionId từ token
+    // 6. Trích xuất sessionId từ token
     @Override
     public String extractSessionId(String token) {
         try {
@@ -95,12 +128,17 @@ public class JwtServiceImpl implements JwtService {
         }
     }
 
-    // 8. Lấy thời gian sống của access token
+    // 7. Lấy thời gian sống của access token
     @Override
     public long getAccessTokenTTL() {
         return accessTokenTTL;
     }
 
+    @Override
+    public long getRefreshTokenTTL() {
+        return refreshTokenTTL;
+    }
+
     // --- Helper methods ---
     private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
         final Claims claims = extractAllClaims(token);
@@ -108,19 +146,17 @@ public class JwtServiceImpl implements JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return jwtParser.parseClaimsJws(token).getBody();
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private String createAccessToken(Long userId, String email, Role role, Status status, Long sessionId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(SESSION_ID_CLAIM, sessionId.toString());
+        claims.put(USER_ID_CLAIM, userId);
+        claims.put(ROLE_CLAIM, role.name());
+        claims.put(STATUS_CLAIM, status.name());
+        claims.put(TOKEN_TYPE_CLAIM, VerifiedToken.ACCESS);
+        return createToken(claims, email, accessTokenTTL);
     }
 
     private String createToken(Map<String, Object> claims, String subject, long expiration) {
@@ -129,7 +165,7 @@ public class JwtServiceImpl implements JwtService {
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignKey())
+                .signWith(signKey)
                 .compact();
     }
 }
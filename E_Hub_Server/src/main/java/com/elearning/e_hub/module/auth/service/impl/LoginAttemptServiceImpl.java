@@ -0,0 +1,224 @@
+package com.elearning.e_hub.module.auth.service.impl;
+
+import com.elearning.e_hub.common.annotation.LogExecution;
+import com.elearning.e_hub.common.exception.AppException;
+import com.elearning.e_hub.common.exception.ErrorCode;
+import com.elearning.e_hub.module.auth.service.LoginAttemptService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Giới hạn số lần đăng nhập sai theo email và theo IP bằng sliding window trong Redis (script Lua, một round-trip).
+ * Trước khi xác thực chỉ kiểm tra, không ghi nhận: chỉ lần sai mới được đếm, đăng nhập thành công xóa cửa sổ của email.
+ * Token bucket cục bộ chặn trước các nguồn tấn công dồn dập mà không cần gọi Redis.
+ * Chạy trước mọi truy vấn DB và BCrypt của luồng login.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LoginAttemptServiceImpl implements LoginAttemptService {
+
+    private static final String EMAIL_KEY_PREFIX = "login:attempts:email:";
+    private static final String IP_KEY_PREFIX = "login:attempts:ip:";
+
+    // Chỉ đọc. Trả về {0, ''} nếu được phép, ngược lại {số ms phải chờ, 'email' | 'ip'}
+    private static final RedisScript<List> CHECK_SCRIPT = new DefaultRedisScript<>("""
+            local now = tonumber(ARGV[1])
+            local window = tonumber(ARGV[2])
+            local limits = { tonumber(ARGV[3]), tonumber(ARGV[4]) }
+            local scopes = { 'email', 'ip' }
+            for i = 1, 2 do
+                local count = redis.call('ZCOUNT', KEYS[i], ARGV[5], '+inf')
+                if count >= limits[i] then
+                    -- Được thử lại khi lần sai thứ (count - limit + 1) tính từ cũ nhất ra khỏi cửa sổ
+                    local entry = redis.call('ZRANGEBYSCORE', KEYS[i], ARGV[5], '+inf',
+                        'WITHSCORES', 'LIMIT', count - limits[i], 1)
+                    return { tonumber(entry[2]) + window - now, scopes[i] }
+                end
+            end
+            return { 0, '' }
+            """, List.class);
+
+    // Ghi một lần sai vào cả hai cửa sổ, bỏ các lần đã ra khỏi cửa sổ
+    private static final RedisScript<Long> RECORD_FAILURE_SCRIPT = new DefaultRedisScript<>("""
+            for i = 1, 2 do
+                redis.call('ZREMRANGEBYSCORE', KEYS[i], '-inf', ARGV[2])
+                redis.call('ZADD', KEYS[i], ARGV[1], ARGV[3])
+                redis.call('PEXPIRE', KEYS[i], ARGV[4])
+            end
+            return 1
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${security.login-throttle.email-limit:5}")
+    private int emailLimit;
+
+    @Value("${security.login-throttle.ip-limit:50}")
+    private int ipLimit;
+
+    @Value("${security.login-throttle.window:900000}")
+    private long window;
+
+    private Cache<String, LocalBucket> localBuckets;
+
+    @PostConstruct
+    void init() {
+        this.localBuckets = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofMillis(window))
+                .build();
+    }
+
+    @Override
+    @LogExecution
+    public void checkAllowed(String email, String clientIp) {
+        String emailKey = emailKey(email);
+        String ipKey = IP_KEY_PREFIX + clientIp;
+        long now = System.currentTimeMillis();
+
+        // 1. Pre-filter cục bộ: từ chối ngay nếu bucket đã cạn hoặc Redis vừa chặn key này (không tiêu token)
+        rejectLocally(emailKey, now, "email");
+        rejectLocally(ipKey, now, "ip");
+
+        // 2. Sliding window phân tán trong Redis
+        List<?> result;
+        try {
+            result = redisTemplate.execute(CHECK_SCRIPT, List.of(emailKey, ipKey),
+                    Long.toString(now), Long.toString(window), Integer.toString(emailLimit), Integer.toString(ipLimit),
+                    windowStart(now));
+        } catch (Exception e) {
+            // Redis lỗi: chỉ dựa vào pre-filter cục bộ thay vì chặn toàn bộ đăng nhập
+            log.warn("Không thể kiểm tra giới hạn đăng nhập trên Redis: {}", e.getMessage());
+            return;
+        }
+        long retryAfterMillis = result != null ? ((Number) result.get(0)).longValue() : 0;
+        if (retryAfterMillis > 0) {
+            String scope = (String) result.get(1);
+            String key = "email".equals(scope) ? emailKey : ipKey;
+            localBucket(key, scope, now).blockUntil(now + retryAfterMillis);
+            throw throttled(scope, "redis", retryAfterMillis);
+        }
+    }
+
+    @Override
+    public void recordFailure(String email, String clientIp) {
+        String emailKey = emailKey(email);
+        String ipKey = IP_KEY_PREFIX + clientIp;
+        long now = System.currentTimeMillis();
+
+        localBucket(emailKey, "email", now).consume(now, window);
+        localBucket(ipKey, "ip", now).consume(now, window);
+        try {
+            redisTemplate.execute(RECORD_FAILURE_SCRIPT, List.of(emailKey, ipKey),
+                    Long.toString(now), Long.toString(now - window),
+                    now + "-" + ThreadLocalRandom.current().nextLong(), Long.toString(window));
+        } catch (Exception e) {
+            log.warn("Không thể ghi nhận đăng nhập sai trên Redis: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void recordSuccess(String email) {
+        String emailKey = emailKey(email);
+        localBuckets.invalidate(emailKey);
+        try {
+            redisTemplate.delete(emailKey);
+        } catch (Exception e) {
+            log.warn("Không thể xóa các lần đăng nhập sai trên Redis: {}", e.getMessage());
+        }
+    }
+
+    private static String emailKey(String email) {
+        return EMAIL_KEY_PREFIX + email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Điểm bắt đầu cửa sổ (loại trừ) theo cú pháp score của ZCOUNT/ZRANGEBYSCORE
+    private String windowStart(long now) {
+        return "(" + (now - window);
+    }
+
+    private void rejectLocally(String key, long now, String scope) {
+        LocalBucket bucket = localBuckets.getIfPresent(key);
+        long retryAfterMillis = bucket != null ? bucket.retryAfter(now, window) : 0;
+        if (retryAfterMillis > 0) {
+            throw throttled(scope, "local", retryAfterMillis);
+        }
+    }
+
+    private LocalBucket localBucket(String key, String scope, long now) {
+        return localBuckets.get(key, k -> new LocalBucket(limitOf(scope), now));
+    }
+
+    private int limitOf(String scope) {
+        return "email".equals(scope) ? emailLimit : ipLimit;
+    }
+
+    private AppException throttled(String scope, String tier, long retryAfterMillis) {
+        Counter.builder("auth.login.throttled")
+                .tag("scope", scope)
+                .tag("tier", tier)
+                .register(meterRegistry)
+                .increment();
+        return AppException.retryAfter(ErrorCode.TOO_MANY_LOGIN_ATTEMPTS,
+                Math.max(1, (retryAfterMillis + 999) / 1000),
+                "Bạn đã đăng nhập sai quá nhiều lần, vui lòng thử lại sau");
+    }
+
+    /**
+     * Token bucket cục bộ: dung lượng bằng giới hạn của cửa sổ, nạp lại đều trong cửa sổ; mỗi lần sai tiêu một token.
+     * Critical section ngắn, không I/O.
+     */
+    // synchronized chỉ bao phép tính thuần (không I/O) nên không giữ carrier lâu khi chạy trên virtual thread
+    private static final class LocalBucket {
+        private final int capacity;
+        private double tokens;
+        private long lastRefill;
+        private long blockedUntil;
+
+        LocalBucket(int capacity, long now) {
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.lastRefill = now;
+        }
+
+        // Chỉ kiểm tra, không tiêu token
+        synchronized long retryAfter(long now, long window) {
+            if (now < blockedUntil) {
+                return blockedUntil - now;
+            }
+            refill(now, window);
+            return tokens < 1 ? (long) Math.ceil((1 - tokens) * window / capacity) : 0;
+        }
+
+        synchronized void consume(long now, long window) {
+            refill(now, window);
+            tokens = Math.max(0, tokens - 1);
+        }
+
+        private void refill(long now, long window) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * (double) capacity / window);
+            lastRefill = now;
+        }
+
+        synchronized void blockUntil(long until) {
+            blockedUntil = Math.max(blockedUntil, until);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.elearning.e_hub.module.auth.service.impl;
+
+import com.elearning.e_hub.common.annotation.LogExecution;
+import com.elearning.e_hub.common.entity.Role;
+import com.elearning.e_hub.common.entity.Status;
+import com.elearning.e_hub.common.exception.AppException;
+import com.elearning.e_hub.common.exception.ErrorCode;
+import com.elearning.e_hub.module.auth.entity.Session;
+import com.elearning.e_hub.module.auth.service.JwtService;
+import com.elearning.e_hub.module.auth.service.RefreshTokenService;
+import com.elearning.e_hub.module.user.entity.User;
+import com.elearning.e_hub.security.SessionRevocationRegistry;
+import com.elearning.e_hub.security.UserPrincipal;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Refresh token family lưu trong Redis hash session:refresh:{sessionId}, hết hạn cùng lúc với session
+ * (Session.expireAt). Rotate không gia hạn: sau thời điểm đó phải đăng nhập lại.
+ * Mỗi lần refresh chỉ tốn một round-trip Redis (script Lua compare-and-set) và không có truy vấn SQL.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    private static final String FAMILY_KEY_PREFIX = "session:refresh:";
+    private static final String CURRENT_FIELD = "current";
+    private static final String USER_ID_FIELD = "userId";
+    private static final String EMAIL_FIELD = "email";
+    private static final String ROLE_FIELD = "role";
+    private static final String STATUS_FIELD = "status";
+
+    private static final String RESULT_OK = "OK";
+    private static final String RESULT_REUSED = "REUSED";
+
+    private static final AppException TOKEN_REUSED =
+            AppException.cached(ErrorCode.INVALID_TOKEN, "Token làm mới đã được sử dụng, vui lòng đăng nhập lại");
+    private static final AppException FAMILY_MISSING =
+            AppException.cached(ErrorCode.TOKEN_EXPIRED, "Phiên làm mới không tồn tại");
+
+    // So sánh jti với token mới nhất của family; khớp thì thay bằng jti mới, không khớp thì xóa cả family.
+    // HSET giữ nguyên thời điểm hết hạn tuyệt đối đặt lúc tạo family
+    private static final RedisScript<List> ROTATE_SCRIPT = new DefaultRedisScript<>("""
+            local current = redis.call('HGET', KEYS[1], 'current')
+            if not current then
+                return { 'MISSING' }
+            end
+            if current ~= ARGV[1] then
+                redis.call('DEL', KEYS[1])
+                return { 'REUSED' }
+            end
+            redis.call('HSET', KEYS[1], 'current', ARGV[2])
+            local values = redis.call('HMGET', KEYS[1], 'userId', 'email', 'role', 'status')
+            return { 'OK', values[1], values[2], values[3], values[4] }
+            """, List.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final JwtService jwtService;
+    private final SessionRevocationRegistry revocationRegistry;
+
+    @Override
+    @LogExecution
+    public String startFamily(User user, Session session) {
+        Long sessionId = session.getId();
+        String tokenId = UUID.randomUUID().toString();
+        String key = FAMILY_KEY_PREFIX + sessionId;
+        redisTemplate.opsForHash().putAll(key, Map.of(
+                CURRENT_FIELD, tokenId,
+                USER_ID_FIELD, user.getId().toString(),
+                EMAIL_FIELD, user.getEmail(),
+                ROLE_FIELD, user.getRole().name(),
+                STATUS_FIELD, user.getStatus().name()
+        ));
+        redisTemplate.expireAt(key, session.getExpireAt().atZone(ZoneId.systemDefault()).toInstant());
+        return jwtService.generateRefreshToken(user.getEmail(), sessionId, tokenId);
+    }
+
+    @Override
+    @LogExecution
+    public Rotation rotate(Long sessionId, String tokenId) {
+        String newTokenId = UUID.randomUUID().toString();
+        List<?> result = redisTemplate.execute(ROTATE_SCRIPT, List.of(FAMILY_KEY_PREFIX + sessionId),
+                tokenId, newTokenId);
+
+        String outcome = result != null && !result.isEmpty() ? (String) result.get(0) : null;
+        if (RESULT_REUSED.equals(outcome)) {
+            // Refresh token cũ bị dùng lại: có thể đã bị đánh cắp, thu hồi cả access token của session
+            log.warn("Phát hiện refresh token bị dùng lại cho session {}, thu hồi toàn bộ family", sessionId);
+            revocationRegistry.revoke(sessionId);
+            throw TOKEN_REUSED;
+        }
+        if (!RESULT_OK.equals(outcome)) {
+            throw FAMILY_MISSING;
+        }
+
+        String email = (String) result.get(2);
+        UserPrincipal principal = new UserPrincipal(
+                Long.valueOf((String) result.get(1)),
+                email,
+                Role.valueOf((String) result.get(3)),
+                Status.valueOf((String) result.get(4))
+        );
+        return new Rotation(principal, jwtService.generateRefreshToken(email, sessionId, newTokenId));
+    }
+
+    @Override
+    @LogExecution
+    public void revokeFamilies(Collection<Long> sessionIds) {
+        if (!sessionIds.isEmpty()) {
+            redisTemplate.delete(sessionIds.stream().map(id -> FAMILY_KEY_PREFIX + id).toList());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.elearning.e_hub.module.auth.service.impl;
+
+import com.elearning.e_hub.module.auth.repository.SessionRepository;
+import com.elearning.e_hub.module.auth.service.RefreshTokenService;
+import com.elearning.e_hub.module.auth.service.SessionService;
+import com.elearning.e_hub.security.SessionRevocationRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Thu hồi trên Redis chạy ngay, không chờ commit: nếu transaction bên ngoài rollback thì user chỉ phải
+ * đăng nhập lại, còn ngược lại token của user đã bị xóa/đổi mật khẩu không bao giờ còn dùng được.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SessionServiceImpl implements SessionService {
+
+    private final SessionRepository sessionRepository;
+    private final RefreshTokenService refreshTokenService;
+    private final SessionRevocationRegistry revocationRegistry;
+
+    @Override
+    @Transactional
+    public void revokeAll(Long userId) {
+        revoke(userId);
+        sessionRepository.deactivateAllUserSessions(userId);
+    }
+
+    @Override
+    @Transactional
+    public void deleteAll(Long userId) {
+        revoke(userId);
+        sessionRepository.deleteByUserId(userId);
+    }
+
+    private void revoke(Long userId) {
+        List<Long> sessionIds = sessionRepository.findActiveSessionIdsByUserId(userId);
+        revocationRegistry.revokeAll(sessionIds);
+        refreshTokenService.revokeFamilies(sessionIds);
+        log.info("Đã thu hồi {} session của user {}", sessionIds.size(), userId);
+    }
+}
@@ -1,16 +1,36 @@
 package com.elearning.e_hub.module.user.controller;
 
 import com.elearning.e_hub.common.dto.ApiResponse;
+import com.elearning.e_hub.common.dto.CursorPage;
+import com.elearning.e_hub.common.util.ETags;
+import com.elearning.e_hub.module.user.dto.ExportFormat;
 import com.elearning.e_hub.module.user.dto.UpdateUserRequest;
 import com.elearning.e_hub.module.user.dto.UserDto;
+import com.elearning.e_hub.module.user.dto.UserImportJobDto;
+import com.elearning.e_hub.module.user.dto.UserSortField;
+import com.elearning.e_hub.module.user.service.UserExportService;
+import com.elearning.e_hub.module.user.service.UserImportService;
 import com.elearning.e_hub.module.user.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/v1/users")
@@ -18,17 +38,30 @@ import org.springframework.web.bind.annotation.*;
 public class UserController {
 
     private final UserService userService;
+    private final UserExportService userExportService;
+    private final UserImportService userImportService;
+
+    // Trình duyệt được giữ bản sao nhưng phải xác thực lại (If-None-Match) mỗi lần dùng;
+    // đặt Cache-Control riêng thì Spring Security không ghi đè bằng no-store
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
 
     @GetMapping("/me")
-    public ResponseEntity<ApiResponse<UserDto>> getCurrentUser() {
-        UserDto user = userService.getCurrentUser();
-        return ResponseEntity.ok(new ApiResponse<>("SUCCESS", "Lấy thông tin người dùng thành công", user));
+    public ResponseEntity<ApiResponse<UserDto>> getCurrentUser(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        Long id = userService.getCurrentUserId();
+        String cachedETag = ETags.of(id, userService.getCachedVersion(id));
+        if (ETags.matches(ifNoneMatch, cachedETag)) {
+            return notModified(cachedETag);
+        }
+        UserDto user = userService.getUserById(id);
+        return conditional(ETags.of(user.id(), user.updatedAt()),
+                new ApiResponse<>("SUCCESS", "Lấy thông tin người dùng thành công", user));
     }
 
     @PutMapping("/me")
     public ResponseEntity<ApiResponse<UserDto>> updateProfile(@Valid @RequestBody UpdateUserRequest request) {
-        UserDto user = userService.getCurrentUser();
-        UserDto updatedUser = userService.updateUser(user.id(), request);
+        UserDto updatedUser = userService.updateUser(userService.getCurrentUserId(), request);
         return ResponseEntity.ok(new ApiResponse<>("SUCCESS", "Cập nhật thông tin thành công", updatedUser));
     }
 
@@ -37,8 +70,7 @@ public class UserController {
             @RequestParam String oldPassword,
             @RequestParam String newPassword
     ) {
-        UserDto user = userService.getCurrentUser();
-        userService.updatePassword(user.id(), oldPassword, newPassword);
+        userService.updatePassword(userService.getCurrentUserId(), oldPassword, newPassword);
         return ResponseEntity.ok(new ApiResponse<>("SUCCESS", "Đổi mật khẩu thành công", null));
     }
 
@@ -46,14 +78,93 @@ public class UserController {
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<Page<UserDto>>> getAllUsers(Pageable pageable) {
         Page<UserDto> users = userService.getAllUsers(pageable);
-        return ResponseEntity.ok(new ApiResponse<>("SUCCESS", "Lấy danh sách người dùng thành công", users));
+        String scope = "page:" + users.getNumber() + ':' + users.getSize() + ':' + users.getSort() + ':' + users.getTotalElements();
+        return conditional(ETags.combine(scope, users.getContent(), UserDto::id, UserDto::updatedAt),
+                new ApiResponse<>("SUCCESS", "Lấy danh sách người dùng thành công", users));
+    }
+
+    @GetMapping("/scroll")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CursorPage<UserDto>>> scrollUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "createdAt") String sort,
+            @RequestParam(defaultValue = "DESC") Sort.Direction direction,
+            @RequestParam(defaultValue = "NONE") CursorPage.TotalMode total
+    ) {
+        CursorPage<UserDto> users = userService.scrollUsers(cursor, UserSortField.fromAttribute(sort), direction, size, total);
+        return conditional(cursorPageETag(users), new ApiResponse<>("SUCCESS", "Lấy danh sách người dùng thành công", users));
+    }
+
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CursorPage<UserDto>>> searchUsers(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "true") boolean fuzzy,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        CursorPage<UserDto> users = userService.searchUsers(q, fuzzy, cursor, size);
+        return conditional(cursorPageETag(users), new ApiResponse<>("SUCCESS", "Tìm kiếm người dùng thành công", users));
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        String filename = "users-" + LocalDate.now() + "." + format.getExtension();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        // Ghi trực tiếp vào response trên thread async, không dựng danh sách trong bộ nhớ
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024);
+                userExportService.export(format, gzipOut);
+                gzipOut.finish();
+            } else {
+                userExportService.export(format, out);
+            }
+        };
+        return response.body(body);
+    }
+
+    // Body là nội dung CSV (header: email, fullName, password); xử lý ở background
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<UserImportJobDto>> importUsers(InputStream csv) throws IOException {
+        UserImportJobDto job = userImportService.submit(csv);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/users/import/" + job.id()))
+                .body(new ApiResponse<>("SUCCESS", "Đã nhận file import", job));
+    }
+
+    @GetMapping("/import/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<UserImportJobDto>> getImportJob(@PathVariable String jobId) {
+        UserImportJobDto job = userImportService.getJob(jobId);
+        return ResponseEntity.ok(new ApiResponse<>("SUCCESS", "Lấy trạng thái import thành công", job));
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponse<UserDto>> getUserById(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<UserDto>> getUserById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        String cachedETag = ETags.of(id, userService.getCachedVersion(id));
+        if (ETags.matches(ifNoneMatch, cachedETag)) {
+            return notModified(cachedETag);
+        }
         UserDto user = userService.getUserById(id);
-        return ResponseEntity.ok(new ApiResponse<>("SUCCESS", "Lấy thông tin người dùng thành công", user));
+        return conditional(ETags.of(user.id(), user.updatedAt()),
+                new ApiResponse<>("SUCCESS", "Lấy thông tin người dùng thành công", user));
     }
 
     @PutMapping("/{id}")
@@ -72,4 +183,24 @@ public class UserController {
         userService.deleteUser(id);
         return ResponseEntity.ok(new ApiResponse<>("SUCCESS", "Xóa người dùng thành công", null));
     }
+
+    // 304 chỉ từ version stamp trong cache: không nạp/giải mã profile, không serialize body
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+    }
+
+    // Spring MVC so ETag với If-None-Match và trả 304 trước khi serialize body
+    private static <T> ResponseEntity<T> conditional(String etag, T body) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(REVALIDATE);
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        return response.body(body);
+    }
+
+    private static String cursorPageETag(CursorPage<UserDto> page) {
+        String scope = "cursor:" + page.size() + ':' + page.nextCursor() + ':' + page.hasNext()
+                + ':' + page.totalElements() + ':' + page.totalMode();
+        return ETags.combine(scope, page.content(), UserDto::id, UserDto::updatedAt);
+    }
 }
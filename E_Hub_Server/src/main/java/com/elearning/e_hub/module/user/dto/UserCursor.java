@@ -0,0 +1,42 @@
+package com.elearning.e_hub.module.user.dto;
+
+import com.elearning.e_hub.common.exception.AppException;
+import com.elearning.e_hub.common.exception.ErrorCode;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Vị trí của bản ghi cuối cùng trong trang trước: (giá trị trường sắp xếp, id).
+ * Được mã hóa base64url thành token mờ; client không cần (và không nên) hiểu nội dung.
+ * Cursor mang theo cả trường và chiều sắp xếp nên các trang sau luôn nhất quán với trang đầu.
+ */
+public record UserCursor(UserSortField sort, Sort.Direction direction, String value, Long id) {
+
+    private static final char SEPARATOR = '|';
+    private static final AppException INVALID = AppException.cached(ErrorCode.VALIDATION_ERROR, "Cursor không hợp lệ");
+
+    public String encode() {
+        String raw = sort.name() + SEPARATOR + direction.name() + SEPARATOR + id + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Comparable<?> parsedValue() {
+        return sort.parseValue(value);
+    }
+
+    public static UserCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // value để cuối cùng nên có thể chứa ký tự phân cách
+            String[] parts = raw.split("\\|", 4);
+            UserSortField sort = UserSortField.valueOf(parts[0]);
+            UserCursor cursor = new UserCursor(sort, Sort.Direction.valueOf(parts[1]), parts[3], Long.valueOf(parts[2]));
+            cursor.parsedValue();
+            return cursor;
+        } catch (RuntimeException e) {
+            throw INVALID;
+        }
+    }
+}
@@ -34,4 +34,10 @@ public record UserDto(
             throw new IllegalArgumentException("Email không được để trống");
         }
     }
+
+    // Dạng rút gọn cho danh sách: không chọn cột bio (text, không giới hạn độ dài)
+    public UserDto(Long id, String fullName, String email, Role role, Status status,
+                   LocalDateTime lastLoginAt, String avatarUrl, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, fullName, email, role, status, lastLoginAt, avatarUrl, null, createdAt, updatedAt);
+    }
 }
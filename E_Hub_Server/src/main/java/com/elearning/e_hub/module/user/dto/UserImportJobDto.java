@@ -0,0 +1,30 @@
+package com.elearning.e_hub.module.user.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record UserImportJobDto(
+    String id,
+    Status status,
+    long processedRows,
+    long importedRows,
+    long skippedRows,
+    long failedRows,
+    double rowsPerSecond,
+    LocalDateTime createdAt,
+    LocalDateTime startedAt,
+    LocalDateTime finishedAt,
+    String failureReason,
+    List<RowError> errors
+) {
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    // line là số dòng trong file CSV (dòng header là 1)
+    public record RowError(long line, String email, String message) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.elearning.e_hub.module.user.dto;
+
+import com.elearning.e_hub.common.exception.AppException;
+import com.elearning.e_hub.common.exception.ErrorCode;
+
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * Các trường được phép sắp xếp khi duyệt danh sách user theo cursor.
+ * Mỗi trường phải có index tương ứng (kèm id làm tie-breaker) để truy vấn seek dùng được index:
+ * id là khóa chính, email là unique, created_at dùng idx_users_created_at_id.
+ * Giá trị sắp xếp không được NULL (cursor không mã hóa được NULL): created_at là NOT NULL từ V6.
+ */
+public enum UserSortField {
+    ID("id", UserDto::id, Long::valueOf),
+    CREATED_AT("createdAt", UserDto::createdAt, LocalDateTime::parse),
+    EMAIL("email", UserDto::email, value -> value);
+
+    private final String attribute;
+    private final Function<UserDto, Comparable<?>> extractor;
+    private final Function<String, Comparable<?>> parser;
+
+    UserSortField(String attribute, Function<UserDto, Comparable<?>> extractor, Function<String, Comparable<?>> parser) {
+        this.attribute = attribute;
+        this.extractor = extractor;
+        this.parser = parser;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public Comparable<?> valueOf(UserDto user) {
+        return extractor.apply(user);
+    }
+
+    public Comparable<?> parseValue(String value) {
+        return parser.apply(value);
+    }
+
+    public static UserSortField fromAttribute(String attribute) {
+        for (UserSortField field : values()) {
+            if (field.attribute.equalsIgnoreCase(attribute) || field.name().equalsIgnoreCase(attribute)) {
+                return field;
+            }
+        }
+        throw new AppException(ErrorCode.VALIDATION_ERROR, "Không hỗ trợ sắp xếp theo trường: %s", attribute);
+    }
+}
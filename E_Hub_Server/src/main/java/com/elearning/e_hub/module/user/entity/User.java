@@ -6,18 +6,33 @@ import com.elearning.e_hub.common.entity.Status;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Size;
+import com.elearning.e_hub.common.util.SearchText;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "users")
+@DynamicUpdate
+@Table(name = "users", indexes = {
+    // Khóa seek cho phân trang cursor theo created_at; id là tie-breaker
+    @Index(name = "idx_users_created_at_id", columnList = "created_at, id")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = User.EMAIL_UNIQUE_CONSTRAINT, columnNames = "email")
+})
 @EqualsAndHashCode(callSuper = true)
 public class User extends BaseEntity {
+    // Import hàng loạt (UserImportServiceImpl) cấp id trực tiếp từ sequence này theo cùng quy ước pooled-lo
+    public static final String ID_SEQUENCE = "users_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+    // Signup và import nhận diện email trùng theo tên constraint này
+    public static final String EMAIL_UNIQUE_CONSTRAINT = "uk_users_email";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Size(min = 2, max = 100)
@@ -25,7 +40,7 @@ public class User extends BaseEntity {
     private String fullName;
 
     @Email
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String email;
 
     @Size(min = 8)
@@ -48,4 +63,14 @@ public class User extends BaseEntity {
 
     @Column(columnDefinition = "text")
     private String bio;
+
+    // fullName + email đã bỏ dấu, viết thường; index trigram tạo bởi UserSearchIndexInitializer
+    @Column(name = "search_text", length = 400)
+    private String searchText;
+
+    @PrePersist
+    @PreUpdate
+    void updateSearchText() {
+        searchText = SearchText.of(fullName, email);
+    }
 }
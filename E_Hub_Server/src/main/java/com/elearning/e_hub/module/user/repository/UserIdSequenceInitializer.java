@@ -0,0 +1,48 @@
+package com.elearning.e_hub.module.user.repository;
+
+import com.elearning.e_hub.module.user.entity.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Đẩy users_seq lên quá id lớn nhất hiện có trước khi ứng dụng nhận request.
+ * DB cũ do ddl-auto tạo cấp id bằng identity; khi User chuyển sang users_seq, ddl-auto update tạo sequence mới
+ * bắt đầu từ 1 và user mới trùng khóa chính với user cũ. Profile prod đã được callback afterBaseline của Flyway xử lý.
+ * Chỉ setval khi id lớn nhất nằm ngoài block pooled-lo đã cấp gần nhất, nên không kéo lùi sequence mà node khác
+ * đang dùng. Database khác Postgres (H2 khi test) luôn được tạo mới nên bỏ qua.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserIdSequenceInitializer {
+
+    private static final String ALIGN_SQL =
+        "SELECT setval('" + User.ID_SEQUENCE + "', u.max_id) "
+            + "FROM (SELECT max(id) AS max_id FROM users) u, " + User.ID_SEQUENCE + " s "
+            + "WHERE u.max_id >= CASE WHEN s.is_called THEN s.last_value + ? ELSE s.last_value END";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    void alignSequence() {
+        boolean postgres = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+            .getJdbcServices()
+            .getDialect() instanceof PostgreSQLDialect;
+        if (!postgres) {
+            return;
+        }
+        List<Long> aligned = jdbcTemplate.queryForList(ALIGN_SQL, Long.class, User.ID_ALLOCATION_SIZE);
+        if (!aligned.isEmpty()) {
+            log.warn("{} tụt sau id lớn nhất của users, đã đẩy lên {}", User.ID_SEQUENCE, aligned.get(0));
+        }
+    }
+}
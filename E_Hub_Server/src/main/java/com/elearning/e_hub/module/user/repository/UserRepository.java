@@ -1,12 +1,41 @@
 package com.elearning.e_hub.module.user.repository;
 
+import com.elearning.e_hub.module.user.dto.UserDto;
 import com.elearning.e_hub.module.user.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<User,Long> {
+public interface UserRepository extends JpaRepository<User,Long>, UserRepositoryCustom {
+    // Projection cho màn chi tiết: đủ cột kể cả bio, không bao giờ chọn password
+    String DETAIL_PROJECTION = "SELECT new com.elearning.e_hub.module.user.dto.UserDto(" +
+            "u.id, u.fullName, u.email, u.role, u.status, u.lastLoginAt, u.avatarUrl, u.bio, u.createdAt, u.updatedAt) FROM User u";
+
+    // Projection cho danh sách: bỏ thêm cột bio
+    String SUMMARY_PROJECTION = "SELECT new com.elearning.e_hub.module.user.dto.UserDto(" +
+            "u.id, u.fullName, u.email, u.role, u.status, u.lastLoginAt, u.avatarUrl, u.createdAt, u.updatedAt) FROM User u";
+
+    // readOnly: được gọi ngoài transaction nên tự mở transaction chỉ đọc (đi tới replica khi bật datasource.routing);
+    // trong transaction ghi (login) thì dùng chung transaction đó. Lần nạp principal/profile vào cache
+    // bọc bằng ReadYourWritesTracker.readFromPrimary nên vẫn đọc primary
+    @Transactional(readOnly = true)
     Optional<User> findByEmail(String email);
 
     boolean existsByEmail(String email);
+
+    @Transactional(readOnly = true)
+    @Query(DETAIL_PROJECTION + " WHERE u.id = :id")
+    Optional<UserDto> findDetailById(@Param("id") Long id);
+
+    @Transactional(readOnly = true)
+    @Query(DETAIL_PROJECTION + " WHERE u.email = :email")
+    Optional<UserDto> findDetailByEmail(@Param("email") String email);
+
+    @Query(value = SUMMARY_PROJECTION, countQuery = "SELECT count(u) FROM User u")
+    Page<UserDto> findAllSummaries(Pageable pageable);
 }
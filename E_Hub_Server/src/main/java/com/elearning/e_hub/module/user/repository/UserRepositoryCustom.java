@@ -0,0 +1,29 @@
+package com.elearning.e_hub.module.user.repository;
+
+import com.elearning.e_hub.module.user.dto.UserSortField;
+import com.elearning.e_hub.module.user.dto.UserDto;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Truy vấn seek: lấy tối đa limit user đứng sau (lastValue, lastId) theo thứ tự (sort, id).
+     * lastValue/lastId null nghĩa là trang đầu. Không dùng OFFSET nên chi phí không phụ thuộc độ sâu trang.
+     * Kết quả là projection rút gọn (không có password, bio).
+     */
+    List<UserDto> findPageAfter(UserSortField sort, Sort.Direction direction, Comparable<?> lastValue, Long lastId, int limit);
+
+    /**
+     * Tìm user theo search_text (đã chuẩn hóa, xem SearchText), thứ tự theo id, seek sau afterId.
+     * Từ khóa dưới 3 ký tự khớp đầu một từ bất kỳ (họ, tên, email); từ 3 ký tự khớp chuỗi con, thêm fuzzy (word similarity) trên Postgres.
+     */
+    List<UserDto> search(String normalizedQuery, boolean fuzzy, Long afterId, int limit);
+
+    /**
+     * Số dòng ước lượng từ thống kê của Postgres (pg_class.reltuples), không quét bảng.
+     * Trả về count(*) chính xác khi không phải Postgres hoặc bảng chưa từng được ANALYZE.
+     */
+    long estimateCount();
+}
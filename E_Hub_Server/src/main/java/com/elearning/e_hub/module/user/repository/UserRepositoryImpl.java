@@ -0,0 +1,175 @@
+package com.elearning.e_hub.module.user.repository;
+
+import com.elearning.e_hub.common.entity.Role;
+import com.elearning.e_hub.common.entity.Status;
+import com.elearning.e_hub.module.user.dto.UserDto;
+import com.elearning.e_hub.module.user.dto.UserSortField;
+import com.elearning.e_hub.module.user.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.data.domain.Sort;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+class UserRepositoryImpl implements UserRepositoryCustom {
+
+    private static final String SEARCH_SELECT =
+        "SELECT id, full_name, email, role, status, last_login_at, avatar_url, created_at, updated_at FROM users ";
+
+    // pg_trgm cần ít nhất 3 ký tự để trích trigram từ mẫu LIKE '%q%'
+    private static final int MIN_CONTAINS_LENGTH = 3;
+
+    private static final String ESTIMATE_SQL = "SELECT reltuples::bigint FROM pg_class WHERE oid = 'users'::regclass";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<UserDto> findPageAfter(UserSortField sort, Sort.Direction direction, Comparable<?> lastValue, Long lastId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserDto> query = cb.createQuery(UserDto.class);
+        Root<User> root = query.from(User.class);
+        Path<Long> id = root.get("id");
+        boolean asc = direction.isAscending();
+
+        // Cùng cột với UserRepository.SUMMARY_PROJECTION
+        query.select(cb.construct(UserDto.class,
+            id, root.get("fullName"), root.get("email"), root.get("role"), root.get("status"),
+            root.get("lastLoginAt"), root.get("avatarUrl"), root.get("createdAt"), root.get("updatedAt")));
+
+        if (lastId != null) {
+            query.where(sort == UserSortField.ID
+                ? (asc ? cb.greaterThan(id, lastId) : cb.lessThan(id, lastId))
+                : seekPredicate(cb, root.get(sort.getAttribute()), id, asc, lastValue, lastId));
+        }
+
+        if (sort == UserSortField.ID) {
+            query.orderBy(asc ? cb.asc(id) : cb.desc(id));
+        } else {
+            Path<?> field = root.get(sort.getAttribute());
+            query.orderBy(asc ? cb.asc(field) : cb.desc(field), asc ? cb.asc(id) : cb.desc(id));
+        }
+
+        return entityManager.createQuery(query)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
+    /*
+     * (field, id) > (v, lastId) viết dưới dạng: field >= v AND (field > v OR id > lastId).
+     * Vế "field >= v" cho planner một điều kiện range trên index (field, id) thay vì OR thuần,
+     * nên truy vấn seek thẳng tới vị trí cursor.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate seekPredicate(CriteriaBuilder cb, Path field, Path<Long> id, boolean asc,
+                                    Comparable lastValue, Long lastId) {
+        Expression<Comparable> f = field;
+        if (asc) {
+            return cb.and(
+                cb.greaterThanOrEqualTo(f, lastValue),
+                cb.or(cb.greaterThan(f, lastValue), cb.greaterThan(id, lastId))
+            );
+        }
+        return cb.and(
+            cb.lessThanOrEqualTo(f, lastValue),
+            cb.or(cb.lessThan(f, lastValue), cb.lessThan(id, lastId))
+        );
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<UserDto> search(String normalizedQuery, boolean fuzzy, Long afterId, int limit) {
+        boolean contains = normalizedQuery.length() >= MIN_CONTAINS_LENGTH;
+        boolean trigram = contains && fuzzy && isPostgres();
+
+        StringBuilder sql = new StringBuilder(SEARCH_SELECT).append("WHERE (search_text LIKE :pattern ESCAPE '!'");
+        if (!contains) {
+            // Từ khóa ngắn khớp đầu từng từ (họ, tên đệm, tên, email), không chỉ đầu chuỗi search_text.
+            // Vế đầu dùng index text_pattern_ops, vế sau dùng GIN trigram (trigram đầu từ "  q"/" qu")
+            sql.append(" OR search_text LIKE :wordPattern ESCAPE '!'");
+        }
+        if (trigram) {
+            // word similarity: từ khóa gần giống một phần của search_text, dùng được index GIN
+            sql.append(" OR :query <% search_text");
+        }
+        sql.append(')');
+        if (afterId != null) {
+            sql.append(" AND id > :afterId");
+        }
+        sql.append(" ORDER BY id");
+
+        String escaped = escapeLike(normalizedQuery);
+        Query query = entityManager.createNativeQuery(sql.toString())
+            .setParameter("pattern", contains ? "%" + escaped + "%" : escaped + "%")
+            .setMaxResults(limit);
+        if (!contains) {
+            query.setParameter("wordPattern", "% " + escaped + "%");
+        }
+        if (trigram) {
+            query.setParameter("query", normalizedQuery);
+        }
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+        }
+
+        List<Object[]> rows = query.getResultList();
+        return rows.stream().map(UserRepositoryImpl::toSummary).toList();
+    }
+
+    // Ký tự escape '!' thay cho '\' vì parser tham số của Hibernate coi '\' trong literal là ký tự thoát
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    // Cùng thứ tự cột với SEARCH_SELECT và UserRepository.SUMMARY_PROJECTION
+    private static UserDto toSummary(Object[] row) {
+        return new UserDto(
+            ((Number) row[0]).longValue(),
+            (String) row[1],
+            (String) row[2],
+            Role.valueOf((String) row[3]),
+            Status.valueOf((String) row[4]),
+            toLocalDateTime(row[5]),
+            (String) row[6],
+            toLocalDateTime(row[7]),
+            toLocalDateTime(row[8])
+        );
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+
+    @Override
+    public long estimateCount() {
+        if (isPostgres()) {
+            Number estimate = (Number) entityManager.createNativeQuery(ESTIMATE_SQL).getSingleResult();
+            // reltuples = -1 (PG14+) hoặc 0 khi bảng chưa được ANALYZE
+            if (estimate != null && estimate.longValue() > 0) {
+                return estimate.longValue();
+            }
+        }
+        return entityManager.createQuery("SELECT count(u) FROM User u", Long.class).getSingleResult();
+    }
+
+    private boolean isPostgres() {
+        return entityManager.getEntityManagerFactory()
+            .unwrap(SessionFactoryImplementor.class)
+            .getJdbcServices()
+            .getDialect() instanceof PostgreSQLDialect;
+    }
+}
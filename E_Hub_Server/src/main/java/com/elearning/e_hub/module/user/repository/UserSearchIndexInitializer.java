@@ -0,0 +1,117 @@
+package com.elearning.e_hub.module.user.repository;
+
+import com.elearning.e_hub.common.lock.DistributedLock;
+import com.elearning.e_hub.common.util.SearchText;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Chuẩn bị dữ liệu cho tìm kiếm user: điền search_text cho các dòng cũ và tạo index.
+ * JPA không mô tả được index GIN/trigram nên index được tạo bằng SQL, IF NOT EXISTS để chạy lại an toàn;
+ * migration Flyway (db/migration) cố ý không chứa các index này vì chúng phụ thuộc Postgres/pg_trgm.
+ * Postgres: GIN gin_trgm_ops (LIKE '%q%' và word similarity) + btree text_pattern_ops (LIKE 'q%').
+ * Database khác (H2 khi test): btree thường trên search_text.
+ * Postgres còn nâng statistics target của search_text: với mẫu 100 dòng mặc định, planner có thể ước lượng
+ * một tiền tố từ ngắn phổ biến chỉ khớp vài trăm dòng rồi chọn bitmap + sort thay vì quét theo id.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserSearchIndexInitializer {
+
+    private static final String LOCK_NAME = "user-search-index";
+
+    private static final String[] POSTGRES_DDL = {
+        "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+        "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_search_text_trgm ON users USING gin (search_text gin_trgm_ops)",
+        "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_search_text_prefix ON users (search_text text_pattern_ops)"
+    };
+
+    private static final String[] DEFAULT_DDL = {
+        "CREATE INDEX IF NOT EXISTS idx_users_search_text_prefix ON users (search_text)"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final DistributedLock distributedLock;
+
+    @Value("${user.search.backfill-batch-size:1000}")
+    private int backfillBatchSize;
+
+    @Value("${user.search.statistics-target:1000}")
+    private int statisticsTarget;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        String lockToken;
+        try {
+            lockToken = distributedLock.tryAcquire(LOCK_NAME, Duration.ofMinutes(30));
+        } catch (Exception e) {
+            log.warn("Không thể lấy khóa khởi tạo index tìm kiếm: {}", e.getMessage());
+            return;
+        }
+        if (lockToken == null) {
+            return;
+        }
+
+        try {
+            long filled = backfill();
+            if (filled > 0) {
+                log.info("Đã điền search_text cho {} user", filled);
+            }
+            boolean postgres = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect() instanceof PostgreSQLDialect;
+            for (String ddl : postgres ? POSTGRES_DDL : DEFAULT_DDL) {
+                jdbcTemplate.execute(ddl);
+            }
+            if (postgres) {
+                raiseStatisticsTarget();
+            }
+        } catch (Exception e) {
+            // Thiếu quyền tạo extension...: tìm kiếm vẫn chạy được, chỉ chậm hơn
+            log.warn("Không thể tạo index tìm kiếm user: {}", e.getMessage());
+        } finally {
+            distributedLock.release(LOCK_NAME, lockToken);
+        }
+    }
+
+    // Chỉ ANALYZE khi vừa đổi target, các lần khởi động sau để autovacuum lo
+    private void raiseStatisticsTarget() {
+        Integer current = jdbcTemplate.queryForObject(
+            "SELECT attstattarget FROM pg_attribute WHERE attrelid = 'users'::regclass AND attname = 'search_text'",
+            Integer.class);
+        if (current != null && current == statisticsTarget) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN search_text SET STATISTICS " + statisticsTarget);
+        jdbcTemplate.execute("ANALYZE users (search_text)");
+        log.info("Đặt statistics target của users.search_text = {}", statisticsTarget);
+    }
+
+    private long backfill() {
+        long total = 0;
+        while (true) {
+            List<Object[]> updates = jdbcTemplate.query(
+                "SELECT id, full_name, email FROM users WHERE search_text IS NULL ORDER BY id LIMIT ?",
+                (rs, rowNum) -> new Object[]{SearchText.of(rs.getString(2), rs.getString(3)), rs.getLong(1)},
+                backfillBatchSize);
+            if (updates.isEmpty()) {
+                return total;
+            }
+            jdbcTemplate.batchUpdate("UPDATE users SET search_text = ? WHERE id = ?", updates);
+            total += updates.size();
+        }
+    }
+}
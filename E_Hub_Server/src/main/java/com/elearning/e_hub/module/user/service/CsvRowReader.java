@@ -0,0 +1,94 @@
+package com.elearning.e_hub.module.user.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Đọc CSV (RFC 4180) từng bản ghi một: hỗ trợ trường trong dấu nháy chứa dấu phẩy, xuống dòng và "" thoát.
+ */
+final class CsvRowReader {
+
+    private final Reader reader;
+    private final StringBuilder field = new StringBuilder();
+    private long line = 1;
+    private long recordLine;
+    private int pushback = -2;
+
+    CsvRowReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    // Dòng bắt đầu của bản ghi vừa đọc
+    long getRecordLine() {
+        return recordLine;
+    }
+
+    // null khi hết file
+    List<String> next() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+        List<String> record = new ArrayList<>();
+        boolean quoted = false;
+        field.setLength(0);
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Thiếu dấu nháy đóng cho bản ghi bắt đầu ở dòng " + recordLine);
+                }
+                if (c == '"') {
+                    int n = read();
+                    if (n == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = n;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int n = read();
+                    if (n != '\n') {
+                        unread(n);
+                    }
+                }
+                if (c != -1) {
+                    line++;
+                }
+                record.add(field.toString());
+                return record;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (pushback != -2) {
+            int c = pushback;
+            pushback = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        pushback = c;
+    }
+}
@@ -0,0 +1,14 @@
+package com.elearning.e_hub.module.user.service;
+
+import com.elearning.e_hub.module.user.dto.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface UserExportService {
+    /**
+     * Ghi toàn bộ user ra out theo định dạng format, từng dòng một từ cursor phía server.
+     * Bộ nhớ dùng không phụ thuộc số lượng user. Trả về số dòng đã ghi.
+     */
+    long export(ExportFormat format, OutputStream out) throws IOException;
+}
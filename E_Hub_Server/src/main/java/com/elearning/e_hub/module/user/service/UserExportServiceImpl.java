@@ -0,0 +1,194 @@
+package com.elearning.e_hub.module.user.service;
+
+import com.elearning.e_hub.module.user.dto.ExportFormat;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+@Slf4j
+@Service
+public class UserExportServiceImpl implements UserExportService {
+
+    // Không chọn password và bio; thứ tự theo khóa chính để cursor đọc tuần tự
+    private static final String EXPORT_SQL =
+        "SELECT id, full_name, email, role, status, last_login_at, avatar_url, created_at, updated_at " +
+        "FROM users ORDER BY id";
+
+    private static final String[] COLUMNS = {
+        "id", "fullName", "email", "role", "status", "lastLoginAt", "avatarUrl", "createdAt", "updatedAt"
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    public UserExportServiceImpl(DataSource dataSource,
+                                 PlatformTransactionManager transactionManager,
+                                 ObjectMapper objectMapper,
+                                 @Value("${user.export.fetch-size:1000}") int fetchSize) {
+        // JdbcTemplate riêng để fetch size không ảnh hưởng các truy vấn khác.
+        // Postgres chỉ dùng cursor phía server khi có fetch size và autocommit tắt (trong transaction)
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public long export(ExportFormat format, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        RowSink sink = format == ExportFormat.CSV ? new CsvSink(out) : new NdjsonSink(out);
+        long[] rows = {0};
+        try {
+            readOnlyTransaction.executeWithoutResult(status ->
+                jdbcTemplate.query(EXPORT_SQL, rs -> {
+                    try {
+                        sink.write(rs);
+                        rows[0]++;
+                    } catch (IOException e) {
+                        // Client ngắt kết nối: dừng đọc cursor ngay
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            sink.finish();
+        } catch (UncheckedIOException e) {
+            log.warn("Dừng export user sau {} dòng: {}", rows[0], e.getCause().getMessage());
+            throw e.getCause();
+        }
+        log.info("Export {} user ({}) trong {} ms", rows[0], format, System.currentTimeMillis() - start);
+        return rows[0];
+    }
+
+    private interface RowSink {
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static final class CsvSink implements RowSink {
+        private final Writer writer;
+        private boolean headerWritten;
+
+        CsvSink(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            if (!headerWritten) {
+                writer.write(String.join(",", COLUMNS));
+                writer.write("\r\n");
+                headerWritten = true;
+            }
+            for (int i = 1; i <= COLUMNS.length; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                writeField(columnText(rs, i));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (!headerWritten) {
+                writer.write(String.join(",", COLUMNS));
+                writer.write("\r\n");
+            }
+            writer.flush();
+        }
+
+        // RFC 4180; thêm ' trước giá trị bắt đầu bằng = + - @ để Excel không hiểu là công thức
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean formula = !value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0;
+            boolean quote = formula || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            if (formula) {
+                writer.write('\'');
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    writer.write('"');
+                }
+                writer.write(c);
+            }
+            writer.write('"');
+        }
+    }
+
+    private final class NdjsonSink implements RowSink {
+        private final JsonGenerator generator;
+        private boolean empty = true;
+
+        NdjsonSink(OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+            // Mỗi object trên một dòng
+            this.generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField(COLUMNS[0], rs.getLong(1));
+            for (int i = 2; i <= COLUMNS.length; i++) {
+                String value = columnText(rs, i);
+                if (value == null) {
+                    generator.writeNullField(COLUMNS[i - 1]);
+                } else {
+                    generator.writeStringField(COLUMNS[i - 1], value);
+                }
+            }
+            generator.writeEndObject();
+            empty = false;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (!empty) {
+                generator.writeRaw('\n');
+            }
+            generator.close();
+        }
+    }
+
+    // Thời gian ghi theo ISO-8601 giống cách Jackson serialize LocalDateTime trong API
+    private static String columnText(ResultSet rs, int column) throws SQLException {
+        Object value = rs.getObject(column);
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        return value == null ? null : value.toString();
+    }
+}
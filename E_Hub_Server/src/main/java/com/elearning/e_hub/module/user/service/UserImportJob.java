@@ -0,0 +1,110 @@
+package com.elearning.e_hub.module.user.service;
+
+import com.elearning.e_hub.module.user.dto.UserImportJobDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Trạng thái của một job import, được thread import cập nhật và đọc qua API.
+ * Chỉ giữ tối đa maxErrors lỗi chi tiết; số lượng vẫn đếm đầy đủ.
+ */
+final class UserImportJob {
+
+    private final String id;
+    private final int maxErrors;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final List<UserImportJobDto.RowError> errors = new ArrayList<>();
+
+    private volatile UserImportJobDto.Status status = UserImportJobDto.Status.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile long startNanos;
+    private volatile long finishNanos;
+    private volatile String failureReason;
+
+    UserImportJob(String id, int maxErrors) {
+        this.id = id;
+        this.maxErrors = maxErrors;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    void start() {
+        startedAt = LocalDateTime.now();
+        startNanos = System.nanoTime();
+        status = UserImportJobDto.Status.RUNNING;
+    }
+
+    void complete() {
+        finish(UserImportJobDto.Status.COMPLETED, null);
+    }
+
+    void fail(String reason) {
+        finish(UserImportJobDto.Status.FAILED, reason);
+    }
+
+    private void finish(UserImportJobDto.Status finalStatus, String reason) {
+        finishNanos = System.nanoTime();
+        finishedAt = LocalDateTime.now();
+        failureReason = reason;
+        status = finalStatus;
+    }
+
+    void imported(int rows) {
+        imported.addAndGet(rows);
+        processed.addAndGet(rows);
+    }
+
+    void skipped(long line, String email, String message) {
+        skipped.incrementAndGet();
+        processed.incrementAndGet();
+        addError(line, email, message);
+    }
+
+    void failed(long line, String email, String message) {
+        failed.incrementAndGet();
+        processed.incrementAndGet();
+        addError(line, email, message);
+    }
+
+    private void addError(long line, String email, String message) {
+        synchronized (errors) {
+            if (errors.size() < maxErrors) {
+                errors.add(new UserImportJobDto.RowError(line, email, message));
+            }
+        }
+    }
+
+    UserImportJobDto toDto() {
+        long processedRows = processed.get();
+        long end = finishNanos != 0 ? finishNanos : System.nanoTime();
+        double seconds = startNanos == 0 ? 0 : (end - startNanos) / 1_000_000_000d;
+        List<UserImportJobDto.RowError> errorSnapshot;
+        synchronized (errors) {
+            errorSnapshot = List.copyOf(errors);
+        }
+        return new UserImportJobDto(
+            id,
+            status,
+            processedRows,
+            imported.get(),
+            skipped.get(),
+            failed.get(),
+            seconds > 0 ? Math.round(processedRows / seconds * 10) / 10d : 0,
+            createdAt,
+            startedAt,
+            finishedAt,
+            failureReason,
+            errorSnapshot
+        );
+    }
+}
@@ -0,0 +1,16 @@
+package com.elearning.e_hub.module.user.service;
+
+import com.elearning.e_hub.module.user.dto.UserImportJobDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface UserImportService {
+    /**
+     * Lưu CSV (email, fullName, password) vào file tạm rồi import ở background.
+     * Trả về ngay trạng thái job (QUEUED); tiến độ xem qua {@link #getJob(String)}.
+     */
+    UserImportJobDto submit(InputStream csv) throws IOException;
+
+    UserImportJobDto getJob(String jobId);
+}
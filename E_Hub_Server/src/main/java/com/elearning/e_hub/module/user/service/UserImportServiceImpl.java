@@ -0,0 +1,357 @@
+package com.elearning.e_hub.module.user.service;
+
+import com.elearning.e_hub.common.entity.Role;
+import com.elearning.e_hub.common.entity.Status;
+import com.elearning.e_hub.common.exception.AppException;
+import com.elearning.e_hub.common.exception.ErrorCode;
+import com.elearning.e_hub.common.util.ConstraintViolations;
+import com.elearning.e_hub.common.util.SearchText;
+import com.elearning.e_hub.module.user.dto.UserImportJobDto;
+import com.elearning.e_hub.module.user.entity.User;
+import com.elearning.e_hub.security.BoundedPasswordEncoder;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+@Slf4j
+@Service
+public class UserImportServiceImpl implements UserImportService, DisposableBean {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO users (id, full_name, email, password, role, status, search_text, created_at, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String EXISTING_EMAILS_SQL = "SELECT email FROM users WHERE email IN (:emails)";
+
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor importExecutor;
+    private final ExecutorService hashExecutor;
+    private final BCryptPasswordEncoder hasher;
+    private final SecureRandom random = new SecureRandom();
+    private final String nextIdSql;
+    private final Cache<String, UserImportJob> jobs;
+
+    private final int chunkSize;
+    private final long maxBytes;
+    private final int maxErrors;
+
+    public UserImportServiceImpl(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 EntityManagerFactory entityManagerFactory,
+                                 BoundedPasswordEncoder passwordEncoder,
+                                 @Qualifier("userImportExecutor") TaskExecutor importExecutor,
+                                 @Value("${user.import.chunk-size:500}") int chunkSize,
+                                 @Value("${user.import.max-bytes:104857600}") long maxBytes,
+                                 @Value("${user.import.max-errors:1000}") int maxErrors,
+                                 @Value("${user.import.hash-threads:0}") int hashThreads,
+                                 @Value("${user.import.job-retention:86400000}") long jobRetention) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.importExecutor = importExecutor;
+        this.chunkSize = chunkSize;
+        this.maxBytes = maxBytes;
+        this.maxErrors = maxErrors;
+
+        // Cùng cost với encoder chính để hash import giống hệt hash tạo khi đăng ký.
+        // Pool riêng: không chiếm hàng đợi có giới hạn của BoundedPasswordEncoder dành cho login
+        this.hasher = new BCryptPasswordEncoder(passwordEncoder.getStrength());
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.hashExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "user-import-hash-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.nextIdSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+            .getJdbcServices()
+            .getDialect()
+            .getSequenceSupport()
+            .getSequenceNextValString(User.ID_SEQUENCE);
+
+        this.jobs = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMillis(jobRetention))
+            .build();
+    }
+
+    @Override
+    public UserImportJobDto submit(InputStream csv) throws IOException {
+        Path file = Files.createTempFile("user-import-", ".csv");
+        try {
+            spool(csv, file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        UserImportJob job = new UserImportJob(UUID.randomUUID().toString(), maxErrors);
+        jobs.put(job.getId(), job);
+        try {
+            importExecutor.execute(() -> run(job, file));
+        } catch (TaskRejectedException e) {
+            jobs.invalidate(job.getId());
+            Files.deleteIfExists(file);
+            throw AppException.retryAfter(ErrorCode.SERVICE_BUSY, 60, "Đang có quá nhiều job import, vui lòng thử lại sau");
+        }
+        log.info("Nhận job import user {} ({} bytes)", job.getId(), Files.size(file));
+        return job.toDto();
+    }
+
+    @Override
+    public UserImportJobDto getJob(String jobId) {
+        UserImportJob job = jobs.getIfPresent(jobId);
+        if (job == null) {
+            throw new AppException(ErrorCode.IMPORT_JOB_NOT_FOUND, "Không tìm thấy job import: " + jobId);
+        }
+        return job.toDto();
+    }
+
+    @Override
+    public void destroy() {
+        hashExecutor.shutdownNow();
+    }
+
+    private void spool(InputStream in, Path file) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        try (OutputStream out = Files.newOutputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+                if (total > maxBytes) {
+                    throw new AppException(ErrorCode.VALIDATION_ERROR, "File import vượt quá " + maxBytes + " bytes");
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private void run(UserImportJob job, Path file) {
+        job.start();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            CsvRowReader csv = new CsvRowReader(reader);
+            Map<String, Integer> columns = readHeader(csv.next());
+            IdBlock ids = new IdBlock();
+            Set<String> seenEmails = new HashSet<>();
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+
+            List<String> record;
+            while ((record = csv.next()) != null) {
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                ImportRow row = toRow(csv.getRecordLine(), record, columns);
+                String error = validate(row);
+                if (error != null) {
+                    job.failed(row.line(), row.email(), error);
+                } else if (!seenEmails.add(row.email())) {
+                    job.skipped(row.line(), row.email(), "Email bị trùng trong file");
+                } else {
+                    chunk.add(row);
+                }
+                if (chunk.size() >= chunkSize) {
+                    importChunk(job, chunk, ids);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(job, chunk, ids);
+            }
+            job.complete();
+            UserImportJobDto result = job.toDto();
+            log.info("Job import {} xong: {} thêm mới, {} bỏ qua, {} lỗi ({} dòng/s)",
+                job.getId(), result.importedRows(), result.skippedRows(), result.failedRows(), result.rowsPerSecond());
+        } catch (Exception e) {
+            log.error("Job import {} thất bại", job.getId(), e);
+            job.fail(e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Không xóa được file tạm {}", file, e);
+            }
+        }
+    }
+
+    private Map<String, Integer> readHeader(List<String> header) {
+        if (header == null) {
+            throw new IllegalArgumentException("File CSV rỗng");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            // Bỏ BOM UTF-8 ở đầu file do Excel thêm vào
+            String name = header.get(i).replace("\uFEFF", "").trim().replace("_", "").toLowerCase();
+            columns.put(name, i);
+        }
+        if (!columns.containsKey("email") || !columns.containsKey("fullname")) {
+            throw new IllegalArgumentException("Header CSV phải có cột email và fullName");
+        }
+        return columns;
+    }
+
+    private ImportRow toRow(long line, List<String> record, Map<String, Integer> columns) {
+        return new ImportRow(
+            line,
+            column(record, columns.get("email")),
+            column(record, columns.get("fullname")),
+            column(record, columns.get("password"))
+        );
+    }
+
+    private static String column(List<String> record, Integer index) {
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // Cùng ràng buộc với User entity và SignupRequest
+    private static String validate(ImportRow row) {
+        if (row.email() == null || !EMAIL_PATTERN.matcher(row.email()).matches()) {
+            return "Email không hợp lệ";
+        }
+        if (row.fullName() == null || row.fullName().length() < 2 || row.fullName().length() > 100) {
+            return "Họ tên phải từ 2 đến 100 ký tự";
+        }
+        if (row.password() != null && row.password().length() < 8) {
+            return "Mật khẩu phải có ít nhất 8 ký tự";
+        }
+        return null;
+    }
+
+    private void importChunk(UserImportJob job, List<ImportRow> chunk, IdBlock ids) {
+        // Loại email đã có trong DB bằng một truy vấn cho cả chunk, trước khi tốn BCrypt
+        Set<String> existing = new HashSet<>(jdbcTemplate.queryForList(
+            EXISTING_EMAILS_SQL,
+            Map.of("emails", chunk.stream().map(ImportRow::email).toList()),
+            String.class));
+        List<ImportRow> fresh = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (existing.contains(row.email())) {
+                job.skipped(row.line(), row.email(), "Email đã tồn tại");
+            } else {
+                fresh.add(row);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        // Hash song song trên pool riêng. Không có mật khẩu: đặt ngẫu nhiên, user dùng "quên mật khẩu" để đặt lại
+        List<CompletableFuture<String>> hashes = fresh.stream()
+            .map(row -> CompletableFuture.supplyAsync(
+                () -> hasher.encode(row.password() != null ? row.password() : randomPassword()), hashExecutor))
+            .toList();
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(fresh.size());
+        for (int i = 0; i < fresh.size(); i++) {
+            ImportRow row = fresh.get(i);
+            batch.add(new Object[]{
+                ids.next(), row.fullName(), row.email(), hashes.get(i).join(),
+                Role.USER.name(), Status.ACTIVE.name(), SearchText.of(row.fullName(), row.email()), now, now
+            });
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_SQL, batch));
+            job.imported(batch.size());
+        } catch (DataIntegrityViolationException e) {
+            // Email vừa được tạo đồng thời (signup) giữa lúc kiểm tra và insert: thử lại từng dòng
+            log.warn("Batch import {} vi phạm ràng buộc, chuyển sang insert từng dòng", job.getId());
+            insertOneByOne(job, fresh, batch);
+        }
+    }
+
+    private void insertOneByOne(UserImportJob job, List<ImportRow> rows, List<Object[]> batch) {
+        for (int i = 0; i < rows.size(); i++) {
+            ImportRow row = rows.get(i);
+            Object[] args = batch.get(i);
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.getJdbcTemplate().update(INSERT_SQL, args));
+                job.imported(1);
+            } catch (DataIntegrityViolationException e) {
+                if (ConstraintViolations.violates(e, User.EMAIL_UNIQUE_CONSTRAINT)) {
+                    job.skipped(row.line(), row.email(), "Email đã tồn tại");
+                } else {
+                    job.failed(row.line(), row.email(), e.getMostSpecificCause().getMessage());
+                }
+            } catch (DataAccessException e) {
+                job.failed(row.line(), row.email(), e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    private String randomPassword() {
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private record ImportRow(long line, String email, String fullName, String password) {
+    }
+
+    /*
+     * Cấp id theo quy ước pooled-lo giống Hibernate: mỗi lần nextval trả về giá trị v,
+     * job được dùng các id [v, v + ID_ALLOCATION_SIZE) nên không trùng với id do Hibernate cấp.
+     */
+    private final class IdBlock {
+        private long next;
+        private long end;
+
+        long next() {
+            if (next == end) {
+                Long value = jdbcTemplate.getJdbcTemplate().queryForObject(nextIdSql, Long.class);
+                next = value;
+                end = value + User.ID_ALLOCATION_SIZE;
+            }
+            return next++;
+        }
+    }
+}
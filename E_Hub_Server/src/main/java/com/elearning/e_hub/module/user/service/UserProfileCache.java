@@ -0,0 +1,192 @@
+package com.elearning.e_hub.module.user.service;
+
+import com.elearning.e_hub.common.datasource.ReadYourWritesTracker;
+import com.elearning.e_hub.module.user.dto.UserDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Cache-aside cho profile user trên Redis (user:profile:{userId}), giá trị mã hóa nhị phân bằng UserProfileCodec.
+ * - Single-flight: các lần miss đồng thời cùng id trên một node chỉ nạp DB một lần.
+ * - Làm mới sớm theo xác suất (XFetch): entry càng gần hạn và càng tốn thời gian nạp thì càng dễ được nạp lại trước,
+ *   nên key nóng không hết hạn cùng lúc cho mọi request.
+ * - Invalidate ghi tombstone ngắn hạn sau commit, chặn lần nạp đang chạy ghi đè dữ liệu cũ vào cache.
+ * - Lần nạp luôn đọc primary: replica trễ có thể vẫn giữ dòng vừa bị sửa/xóa, và bản cache sống lâu hơn tombstone.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserProfileCache {
+
+    private static final String KEY_PREFIX = "user:profile:";
+    private static final byte[] TOMBSTONE = {0};
+
+    // Không ghi đè tombstone: dữ liệu nạp trước khi invalidate bị bỏ qua
+    private static final RedisScript<Long> WRITE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[2] then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[3])
+            return 1
+            """, Long.class);
+
+    private final RedisTemplate<String, byte[]> binaryRedisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ReadYourWritesTracker readYourWrites;
+    private final ConcurrentMap<Long, CompletableFuture<UserDto>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${user.profile-cache.ttl:1800000}")
+    private long ttl;
+
+    @Value("${user.profile-cache.early-refresh-beta:1.0}")
+    private double earlyRefreshBeta;
+
+    @Value("${user.profile-cache.tombstone-ttl:2000}")
+    private long tombstoneTtl;
+
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    void init() {
+        // Cùng tên/tag với thống kê Caffeine (cache.gets) để chung dashboard
+        this.hits = Counter.builder("cache.gets").tag("cache", "userProfile").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "userProfile").tag("result", "miss").register(meterRegistry);
+    }
+
+    public UserDto get(Long id, Function<Long, UserDto> loader) {
+        UserProfileCodec.Entry entry = readRemote(id);
+        if (entry != null && !shouldRefreshEarly(entry)) {
+            hits.increment();
+            return entry.user();
+        }
+        misses.increment();
+        return load(id, loader);
+    }
+
+    /**
+     * updatedAt của profile đang cache, đọc bằng GETRANGE chỉ phần header (không tải/giải mã cả profile).
+     * null nếu chưa cache, vừa bị invalidate hoặc Redis không khả dụng.
+     */
+    public LocalDateTime cachedVersion(Long id) {
+        byte[] key = (KEY_PREFIX + id).getBytes(StandardCharsets.UTF_8);
+        try {
+            byte[] header = binaryRedisTemplate.execute((RedisCallback<byte[]>) connection ->
+                    connection.stringCommands().getRange(key, 0, UserProfileCodec.HEADER_LENGTH - 1));
+            return UserProfileCodec.decodeUpdatedAt(header);
+        } catch (Exception e) {
+            log.debug("Redis không khả dụng khi đọc version profile: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Xóa profile khỏi cache. Nếu đang trong transaction thì chỉ thực hiện sau khi commit,
+     * tránh để request khác nạp lại dữ liệu cũ trước khi thay đổi được ghi xuống DB.
+     */
+    public void evict(Long id) {
+        if (id == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(id);
+                }
+            });
+        } else {
+            evictNow(id);
+        }
+    }
+
+    private UserDto load(Long id, Function<Long, UserDto> loader) {
+        CompletableFuture<UserDto> future = new CompletableFuture<>();
+        CompletableFuture<UserDto> existing = inFlight.putIfAbsent(id, future);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            long start = System.nanoTime();
+            UserDto user = readYourWrites.readFromPrimary(() -> loader.apply(id));
+            int deltaMillis = (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            writeRemote(id, user, deltaMillis);
+            future.complete(user);
+            return user;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, future);
+        }
+    }
+
+    // Lỗi của lần nạp (vd. USER_NOT_FOUND) được ném lại nguyên vẹn cho mọi request đang chờ
+    private static UserDto await(CompletableFuture<UserDto> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // XFetch: làm mới khi now - delta * beta * ln(rand) >= expiresAt, với rand trong (0, 1]
+    private boolean shouldRefreshEarly(UserProfileCodec.Entry entry) {
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        double gap = -entry.deltaMillis() * earlyRefreshBeta * Math.log(random);
+        return System.currentTimeMillis() + gap >= entry.expiresAt();
+    }
+
+    private UserProfileCodec.Entry readRemote(Long id) {
+        try {
+            return UserProfileCodec.decode(binaryRedisTemplate.opsForValue().get(KEY_PREFIX + id));
+        } catch (Exception e) {
+            log.debug("Redis không khả dụng khi đọc profile: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRemote(Long id, UserDto user, int deltaMillis) {
+        try {
+            byte[] value = UserProfileCodec.encode(user, System.currentTimeMillis() + ttl, deltaMillis);
+            binaryRedisTemplate.execute(WRITE_SCRIPT, List.of(KEY_PREFIX + id),
+                    value, TOMBSTONE, Long.toString(ttl).getBytes(StandardCharsets.US_ASCII));
+        } catch (Exception e) {
+            log.debug("Redis không khả dụng khi ghi profile: {}", e.getMessage());
+        }
+    }
+
+    private void evictNow(Long id) {
+        try {
+            binaryRedisTemplate.opsForValue().set(KEY_PREFIX + id, TOMBSTONE, Duration.ofMillis(tombstoneTtl));
+        } catch (Exception e) {
+            log.warn("Không thể invalidate profile của user {}: {}", id, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.elearning.e_hub.module.user.service;
+
+import com.elearning.e_hub.common.entity.Role;
+import com.elearning.e_hub.common.entity.Status;
+import com.elearning.e_hub.module.user.dto.UserDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Mã hóa nhị phân gọn cho UserDto lưu trong Redis (thay vì JSON/String).
+ * Bố cục: header cố định HEADER_LENGTH byte gồm version, expiresAt (epoch ms), delta (ms nạp lại),
+ * updatedAt (epoch giây + nano, UTC; NO_TIME = null), rồi lần lượt các trường còn lại của UserDto.
+ * Header cố định cho phép đọc riêng version stamp bằng GETRANGE mà không tải cả profile.
+ * Chuỗi: độ dài (int, -1 = null) + UTF-8; thời điểm: cờ có/không + epoch giây + nano (UTC).
+ * Đổi bố cục thì tăng VERSION; entry khác version bị coi như miss.
+ */
+final class UserProfileCodec {
+
+    static final byte VERSION = 1;
+    static final int HEADER_LENGTH = 1 + 8 + 4 + 8 + 4;
+
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    record Entry(UserDto user, long expiresAt, int deltaMillis) {
+    }
+
+    private UserProfileCodec() {
+    }
+
+    static byte[] encode(UserDto user, long expiresAt, int deltaMillis) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(expiresAt);
+            out.writeInt(deltaMillis);
+            if (user.updatedAt() != null) {
+                out.writeLong(user.updatedAt().toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(user.updatedAt().getNano());
+            } else {
+                out.writeLong(NO_TIME);
+                out.writeInt(0);
+            }
+            out.writeLong(user.id());
+            writeString(out, user.fullName());
+            writeString(out, user.email());
+            writeString(out, user.role() != null ? user.role().name() : null);
+            writeString(out, user.status() != null ? user.status().name() : null);
+            writeTime(out, user.lastLoginAt());
+            writeString(out, user.avatarUrl());
+            writeString(out, user.bio());
+            writeTime(out, user.createdAt());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // null nếu không phải entry hợp lệ của version hiện tại
+    static Entry decode(byte[] value) {
+        if (value == null || value.length == 0 || value[0] != VERSION) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(value))) {
+            in.readByte();
+            long expiresAt = in.readLong();
+            int deltaMillis = in.readInt();
+            LocalDateTime updatedAt = readHeaderTime(in);
+            UserDto user = new UserDto(
+                    in.readLong(),
+                    readString(in),
+                    readString(in),
+                    toEnum(Role.class, readString(in)),
+                    toEnum(Status.class, readString(in)),
+                    readTime(in),
+                    readString(in),
+                    readString(in),
+                    readTime(in),
+                    updatedAt
+            );
+            return new Entry(user, expiresAt, deltaMillis);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Đọc updatedAt từ HEADER_LENGTH byte đầu của entry (kết quả GETRANGE).
+     * null nếu không phải entry hợp lệ (không có key, tombstone, khác version) hoặc user chưa có updatedAt.
+     */
+    static LocalDateTime decodeUpdatedAt(byte[] header) {
+        if (header == null || header.length < HEADER_LENGTH || header[0] != VERSION) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(header, 1 + 8 + 4, 8 + 4))) {
+            return readHeaderTime(in);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static LocalDateTime readHeaderTime(DataInputStream in) throws IOException {
+        long seconds = in.readLong();
+        int nanos = in.readInt();
+        return seconds != NO_TIME ? LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC) : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+
+    private static <E extends Enum<E>> E toEnum(Class<E> type, String name) {
+        return name != null ? Enum.valueOf(type, name) : null;
+    }
+}
@@ -1,16 +1,25 @@
 package com.elearning.e_hub.module.user.service;
 
+import com.elearning.e_hub.common.dto.CursorPage;
 import com.elearning.e_hub.module.user.dto.UpdateUserRequest;
 import com.elearning.e_hub.module.user.dto.UserDto;
+import com.elearning.e_hub.module.user.dto.UserSortField;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
 
 public interface UserService {
     UserDto getUserById(Long id);
+    LocalDateTime getCachedVersion(Long id);
     UserDto getUserByEmail(String email);
     Page<UserDto> getAllUsers(Pageable pageable);
+    CursorPage<UserDto> searchUsers(String query, boolean fuzzy, String cursor, int size);
+    CursorPage<UserDto> scrollUsers(String cursor, UserSortField sort, Sort.Direction direction, int size, CursorPage.TotalMode totalMode);
     UserDto updateUser(Long id, UpdateUserRequest request);
     void deleteUser(Long id);
     UserDto getCurrentUser();
+    Long getCurrentUserId();
     void updatePassword(Long id, String oldPassword, String newPassword);
 }
@@ -1,48 +1,148 @@
 package com.elearning.e_hub.module.user.service;
 
 import com.elearning.e_hub.common.annotation.LogExecution;
+import com.elearning.e_hub.common.dto.CursorPage;
 import com.elearning.e_hub.common.exception.AppException;
 import com.elearning.e_hub.common.exception.ErrorCode;
+import com.elearning.e_hub.common.util.SearchText;
+import com.elearning.e_hub.module.auth.service.SessionService;
 import com.elearning.e_hub.module.user.dto.UpdateUserRequest;
+import com.elearning.e_hub.module.user.dto.UserCursor;
 import com.elearning.e_hub.module.user.dto.UserDto;
+import com.elearning.e_hub.module.user.dto.UserSortField;
 import com.elearning.e_hub.module.user.entity.User;
 import com.elearning.e_hub.module.user.repository.UserRepository;
+import com.elearning.e_hub.security.PrincipalCache;
+import com.elearning.e_hub.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
+    private static final int MAX_SCROLL_SIZE = 100;
+    private static final int MIN_SEARCH_LENGTH = 2;
+
+    private static final AppException INVALID_CURSOR = AppException.cached(ErrorCode.VALIDATION_ERROR, "Cursor không hợp lệ");
+    private static final AppException WRONG_OLD_PASSWORD =
+            AppException.cached(ErrorCode.INVALID_CREDENTIALS, "Mật khẩu cũ không chính xác");
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
+    private final UserProfileCache profileCache;
+    private final SessionService sessionService;
 
+    // Không mở transaction: cache hit không cần kết nối DB, lần nạp chỉ là một truy vấn đọc
     @Override
     @LogExecution
     public UserDto getUserById(Long id) {
-        return userRepository.findById(id)
-                .map(this::mapToDto)
+        return profileCache.get(id, this::loadProfile);
+    }
+
+    // updatedAt của profile đang cache, dùng cho conditional GET trước khi nạp/giải mã profile
+    @Override
+    public LocalDateTime getCachedVersion(Long id) {
+        return profileCache.cachedVersion(id);
+    }
+
+    private UserDto loadProfile(Long id) {
+        return userRepository.findDetailById(id)
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND, "Không tìm thấy người dùng với ID: %d", id));
     }
 
     @Override
+    @Transactional(readOnly = true)
     @LogExecution
     public UserDto getUserByEmail(String email) {
-        return userRepository.findByEmail(email)
-                .map(this::mapToDto)
+        return userRepository.findDetailByEmail(email)
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND, "Không tìm thấy người dùng với email: %s", email));
     }
 
     @Override
+    @Transactional(readOnly = true)
     @LogExecution
     public Page<UserDto> getAllUsers(Pageable pageable) {
-        return userRepository.findAll(pageable).map(this::mapToDto);
+        // Danh sách không trả bio; xem chi tiết qua getUserById
+        return userRepository.findAllSummaries(pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @LogExecution
+    public CursorPage<UserDto> searchUsers(String query, boolean fuzzy, String cursor, int size) {
+        String normalized = SearchText.normalize(query);
+        if (normalized == null || normalized.length() < MIN_SEARCH_LENGTH) {
+            throw new AppException(ErrorCode.VALIDATION_ERROR, "Từ khóa tìm kiếm phải có ít nhất " + MIN_SEARCH_LENGTH + " ký tự");
+        }
+        int limit = Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+
+        UserCursor after = cursor == null || cursor.isBlank() ? null : UserCursor.decode(cursor);
+        if (after != null && after.sort() != UserSortField.ID) {
+            throw INVALID_CURSOR;
+        }
+
+        List<UserDto> users = userRepository.search(normalized, fuzzy, after == null ? null : after.id(), limit + 1);
+        boolean hasNext = users.size() > limit;
+        if (hasNext) {
+            users = users.subList(0, limit);
+        }
+        String nextCursor = null;
+        if (hasNext) {
+            Long lastId = users.get(users.size() - 1).id();
+            nextCursor = new UserCursor(UserSortField.ID, Sort.Direction.ASC, String.valueOf(lastId), lastId).encode();
+        }
+        return new CursorPage<>(users, limit, nextCursor, hasNext, null, CursorPage.TotalMode.NONE);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @LogExecution
+    public CursorPage<UserDto> scrollUsers(String cursor, UserSortField sort, Sort.Direction direction,
+                                           int size, CursorPage.TotalMode totalMode) {
+        int limit = Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+
+        // Cursor quyết định thứ tự sắp xếp, tham số sort/direction chỉ áp dụng cho trang đầu
+        UserCursor after = cursor == null || cursor.isBlank() ? null : UserCursor.decode(cursor);
+        if (after != null) {
+            sort = after.sort();
+            direction = after.direction();
+        }
+
+        // Lấy dư 1 bản ghi để biết còn trang sau hay không mà không cần count
+        List<UserDto> users = userRepository.findPageAfter(sort, direction,
+                after == null ? null : after.parsedValue(),
+                after == null ? null : after.id(),
+                limit + 1);
+        boolean hasNext = users.size() > limit;
+        if (hasNext) {
+            users = users.subList(0, limit);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            UserDto last = users.get(users.size() - 1);
+            nextCursor = new UserCursor(sort, direction, String.valueOf(sort.valueOf(last)), last.id()).encode();
+        }
+
+        Long total = switch (totalMode) {
+            case NONE -> null;
+            case ESTIMATE -> userRepository.estimateCount();
+            case EXACT -> userRepository.count();
+        };
+
+        return new CursorPage<>(users, limit, nextCursor, hasNext, total, totalMode);
     }
 
     @Override
@@ -52,19 +152,25 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND, "Không tìm thấy người dùng với ID: %d", id));
 
+        principalCache.evict(user.getEmail());
+        profileCache.evict(id);
         if (request.email() != null && !request.email().equals(user.getEmail())) {
             userRepository.findByEmail(request.email())
                     .ifPresent(u -> {
                         throw new AppException(ErrorCode.EMAIL_ALREADY_EXISTS, "Email %s đã được sử dụng", request.email());
                     });
             user.setEmail(request.email());
+            principalCache.evict(request.email());
+            // Token và refresh token family mang email cũ: buộc đăng nhập lại trên mọi thiết bị
+            sessionService.revokeAll(id);
         }
 
         user.setFullName(request.fullName());
         user.setAvatarUrl(request.avatarUrl());
         user.setBio(request.bio());
 
-        return mapToDto(userRepository.save(user));
+        // Flush để @LastModifiedDate được gán trước khi map: updatedAt trong response khớp ETag của lần GET sau
+        return mapToDto(userRepository.saveAndFlush(user));
     }
 
     @Override
@@ -73,15 +179,27 @@ public class UserServiceImpl implements UserService {
     public void deleteUser(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND, "Không tìm thấy người dùng với ID: %d", id));
+        // Thu hồi token trước: ở chế độ stateless-principal token không tự kiểm tra user còn tồn tại
+        sessionService.deleteAll(id);
         userRepository.delete(user);
+        principalCache.evict(user.getEmail());
+        profileCache.evict(id);
     }
 
     @Override
     @LogExecution
     public UserDto getCurrentUser() {
+        return getUserById(getCurrentUserId());
+    }
+
+    @Override
+    public Long getCurrentUserId() {
+        // Principal dựng từ token đã có sẵn id: không cần nạp user chỉ để lấy id trước khi cập nhật
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return getUserByEmail(email);
+        if (authentication.getPrincipal() instanceof UserPrincipal principal && principal.getId() != null) {
+            return principal.getId();
+        }
+        return getUserByEmail(authentication.getName()).id();
     }
 
     @Override
@@ -92,11 +210,15 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND, "Không tìm thấy người dùng với ID: %d", id));
 
         if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
-            throw new AppException(ErrorCode.INVALID_CREDENTIALS, "Mật khẩu cũ không chính xác");
+            throw WRONG_OLD_PASSWORD;
         }
 
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        // Như reset mật khẩu: mọi session (kể cả session hiện tại) phải đăng nhập lại bằng mật khẩu mới
+        sessionService.revokeAll(id);
+        principalCache.evict(user.getEmail());
+        profileCache.evict(id);
     }
 
     private UserDto mapToDto(User user) {
@@ -0,0 +1,145 @@
+package com.elearning.e_hub.security;
+
+import com.elearning.e_hub.common.exception.AppException;
+import com.elearning.e_hub.common.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PasswordEncoder chạy BCrypt trên một executor riêng có số thread bằng số core và hàng đợi giới hạn.
+ * Khi executor bão hòa, request bị từ chối ngay (503) thay vì chiếm hết thread Tomcat của các endpoint khác.
+ * upgradeEncoding trả true khi cost của hash khác cost cấu hình, để DaoAuthenticationProvider rehash khi login.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private static final int MIN_CALIBRATED_COST = 10;
+    private static final int MAX_CALIBRATED_COST = 16;
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    private final BCryptPasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    @Getter
+    private final int strength;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejectedCounter;
+
+    public BoundedPasswordEncoder(int strength, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        this.strength = strength;
+        this.delegate = new BCryptPasswordEncoder(strength);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        this.encodeTimer = Timer.builder("password.hash.duration")
+                .tag("operation", "encode")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hash.duration")
+                .tag("operation", "matches")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("password.hash.rejected").register(meterRegistry);
+        Gauge.builder("password.hash.queue.depth", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> encodeTimer.record(() -> delegate.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // Hash BCrypt có dạng $2a$12$...; cost nằm ở ký tự 4-5
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return false;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) != strength;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * Chọn cost BCrypt lớn nhất mà thời gian hash trên phần cứng hiện tại không vượt quá targetMillis.
+     */
+    public static int calibrate(long targetMillis) {
+        // Warm-up để JIT biên dịch trước khi đo
+        new BCryptPasswordEncoder(MIN_CALIBRATED_COST).encode("calibration");
+
+        int chosen = MIN_CALIBRATED_COST;
+        for (int cost = MIN_CALIBRATED_COST; cost <= MAX_CALIBRATED_COST; cost++) {
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            log.info("BCrypt cost {} mất {} ms", cost, elapsedMillis);
+            if (elapsedMillis > targetMillis) {
+                break;
+            }
+            chosen = cost;
+        }
+        return chosen;
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw AppException.retryAfter(ErrorCode.SERVICE_BUSY, RETRY_AFTER_SECONDS, "Hệ thống đang bận, vui lòng thử lại sau");
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bị gián đoạn khi chờ hash mật khẩu", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -1,52 +1,121 @@
 package com.elearning.e_hub.security;
 
+import com.elearning.e_hub.common.metrics.ExecutionMetrics;
+import com.elearning.e_hub.config.SecurityConfig;
+import com.elearning.e_hub.module.auth.dto.VerifiedToken;
 import com.elearning.e_hub.module.auth.service.JwtService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String METRIC_NAME = "JwtAuthenticationFilter.authenticate";
+
+    private static final RequestMatcher PUBLIC_MATCHER = new OrRequestMatcher(
+            Arrays.stream(SecurityConfig.PUBLIC_ENDPOINTS)
+                    .map(pattern -> (RequestMatcher) new AntPathRequestMatcher(pattern))
+                    .toList()
+    );
+
+    private final WebAuthenticationDetailsSource detailsSource = new WebAuthenticationDetailsSource();
+
     @Autowired
     private JwtService jwtService;
 
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private SessionRevocationRegistry revocationRegistry;
+
+    @Autowired
+    private ExecutionMetrics executionMetrics;
+
+    // true: dựng principal từ claims của token, chỉ chạm DB khi phát hành/refresh token
+    @Value("${jwt.stateless-principal:false}")
+    private boolean statelessPrincipal;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Route permitAll không cần principal nên không tốn công parse/verify token
+        return PUBLIC_MATCHER.matches(request);
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
-        String jwt = null;
-        String username = null;
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwt = authHeader.substring(7);
-            username = jwtService.extractUsername(jwt);
+        if (authHeader != null && authHeader.startsWith(BEARER_PREFIX)
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // Chỉ đo phần xác thực, không tính thời gian xử lý của phần còn lại trong chain
+            long start = System.nanoTime();
+            executionMetrics.record(METRIC_NAME, authenticate(request, authHeader), start);
         }
+        filterChain.doFilter(request, response);
+    }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            if (jwtService.isTokenValid(jwt, userDetails)) {
-                var authToken = jwtService.getAuthenticationToken(jwt, userDetails, request);
-                if (authToken instanceof UsernamePasswordAuthenticationToken) {
-                    ((org.springframework.security.authentication.UsernamePasswordAuthenticationToken) authToken)
-                            .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                }
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-            }
+    // Trả về outcome cho metric
+    private String authenticate(HttpServletRequest request, String authHeader) {
+        // Parse + verify chữ ký đúng một lần cho cả request
+        VerifiedToken token = jwtService.verifyToken(authHeader.substring(BEARER_PREFIX.length()));
+        if (token == null) {
+            return "INVALID_TOKEN";
         }
-        filterChain.doFilter(request, response);
+        // Refresh token sống lâu hơn entry thu hồi session: không bao giờ được dùng làm Bearer token
+        if (!token.isAccessToken()) {
+            return "WRONG_TOKEN_TYPE";
+        }
+        if (isRevoked(token)) {
+            return "REVOKED";
+        }
+        if (missesPrincipalClaims(token)) {
+            return "MISSING_CLAIMS";
+        }
+        UserDetails userDetails = resolvePrincipal(token);
+        if (userDetails == null || !userDetails.isEnabled()) {
+            return "DISABLED";
+        }
+        var authToken = new UsernamePasswordAuthenticationToken(
+                userDetails, null, userDetails.getAuthorities());
+        authToken.setDetails(detailsSource.buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+        return ExecutionMetrics.SUCCESS;
+    }
+
+    private boolean isRevoked(VerifiedToken token) {
+        return token.sessionId() != null && revocationRegistry.isRevoked(token.sessionId());
+    }
+
+    private UserDetails resolvePrincipal(VerifiedToken token) {
+        if (statelessPrincipal && token.hasPrincipalClaims()) {
+            return new UserPrincipal(token.userId(), token.subject(), token.role(), token.status());
+        }
+        // Chế độ stateless bị tắt, hoặc access token cũ phát hành trước khi có claim type:
+        // lấy trạng thái user hiện tại qua cache hai tầng
+        return userDetailsService.loadPrincipal(token.subject());
+    }
+
+    // Access token có claim type luôn được phát hành kèm đủ claims principal; thiếu claims thì không tra DB thay
+    private boolean missesPrincipalClaims(VerifiedToken token) {
+        return statelessPrincipal && token.tokenType() != null && !token.hasPrincipalClaims();
     }
 }
@@ -0,0 +1,32 @@
+package com.elearning.e_hub.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Khớp request đến qua cổng management riêng (management.server.port), cổng chỉ mở trong mạng nội bộ.
+ * Cổng lấy từ web server management sau khi khởi động nên đúng cả khi cấu hình port 0 (test).
+ * Không tách cổng management thì không khớp request nào.
+ */
+@Component
+public class ManagementPortRequestMatcher implements RequestMatcher, ApplicationListener<WebServerInitializedEvent> {
+
+    private static final String MANAGEMENT_NAMESPACE = "management";
+
+    private volatile int managementPort = -1;
+
+    @Override
+    public void onApplicationEvent(WebServerInitializedEvent event) {
+        if (MANAGEMENT_NAMESPACE.equals(event.getApplicationContext().getServerNamespace())) {
+            managementPort = event.getWebServer().getPort();
+        }
+    }
+
+    @Override
+    public boolean matches(HttpServletRequest request) {
+        return managementPort > 0 && request.getLocalPort() == managementPort;
+    }
+}
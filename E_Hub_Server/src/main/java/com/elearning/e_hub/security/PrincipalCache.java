@@ -0,0 +1,173 @@
+package com.elearning.e_hub.security;
+
+import com.elearning.e_hub.common.entity.Role;
+import com.elearning.e_hub.common.entity.Status;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Cache hai tầng cho principal: Caffeine trong process (giới hạn kích thước + TTL) và Redis dùng chung giữa các node.
+ * Khi user thay đổi, entry trong Redis bị thay bằng tombstone ngắn hạn và mọi node nhận lệnh invalidate qua
+ * Redis pub/sub. Tombstone chặn lần nạp đã đọc DB trước khi thay đổi commit ghi principal cũ trở lại cache
+ * (cùng cơ chế với UserProfileCache).
+ * Không bao giờ lưu password hash; chỉ lưu id, role, status.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PrincipalCache implements MessageListener {
+
+    private static final String KEY_PREFIX = "user:principal:";
+    private static final String INVALIDATE_CHANNEL = "user:principal:invalidate";
+    private static final String SEPARATOR = "|";
+    private static final String TOMBSTONE = "-";
+
+    // Không ghi đè tombstone: principal nạp trước khi invalidate bị bỏ qua
+    private static final RedisScript<Long> WRITE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[2] then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[3])
+            return 1
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${security.principal-cache.local-max-size:10000}")
+    private long localMaxSize;
+
+    @Value("${security.principal-cache.local-ttl:30000}")
+    private long localTtl;
+
+    @Value("${security.principal-cache.redis-ttl:300000}")
+    private long redisTtl;
+
+    @Value("${security.principal-cache.tombstone-ttl:2000}")
+    private long tombstoneTtl;
+
+    private Cache<String, UserPrincipal> localCache;
+
+    @PostConstruct
+    void init() {
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofMillis(localTtl))
+                .recordStats()
+                .build();
+        // Thống kê hit/miss/eviction xuất qua /actuator/metrics (cache.gets, cache.evictions, ...)
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "principal");
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    public UserPrincipal get(String email, Function<String, UserPrincipal> loader) {
+        UserPrincipal principal = localCache.getIfPresent(email);
+        if (principal != null) {
+            return principal;
+        }
+        principal = readRemote(email);
+        if (principal == null) {
+            principal = loader.apply(email);
+            // Bị tombstone chặn: principal có thể đã cũ, dùng cho request này nhưng không cache cả ở local
+            if (!writeRemote(principal)) {
+                return principal;
+            }
+        }
+        localCache.put(email, principal);
+        return principal;
+    }
+
+    /**
+     * Xóa principal của user trên mọi node. Nếu đang trong transaction thì chỉ thực hiện sau khi commit,
+     * tránh để node khác nạp lại dữ liệu cũ trước khi thay đổi được ghi xuống DB.
+     */
+    public void evict(String email) {
+        if (email == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(email);
+                }
+            });
+        } else {
+            evictNow(email);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        localCache.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private void evictNow(String email) {
+        localCache.invalidate(email);
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + email, TOMBSTONE, Duration.ofMillis(tombstoneTtl));
+            redisTemplate.convertAndSend(INVALIDATE_CHANNEL, email);
+        } catch (Exception e) {
+            log.warn("Không thể phát lệnh invalidate principal cho {}: {}", email, e.getMessage());
+        }
+    }
+
+    private UserPrincipal readRemote(String email) {
+        try {
+            String value = redisTemplate.opsForValue().get(KEY_PREFIX + email);
+            return value != null && !TOMBSTONE.equals(value) ? decode(email, value) : null;
+        } catch (Exception e) {
+            log.debug("Redis không khả dụng khi đọc principal: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // false nếu tombstone còn hiệu lực (vừa invalidate)
+    private boolean writeRemote(UserPrincipal principal) {
+        try {
+            Long written = redisTemplate.execute(WRITE_SCRIPT, List.of(KEY_PREFIX + principal.getEmail()),
+                    encode(principal), TOMBSTONE, Long.toString(redisTtl));
+            return written == null || written != 0;
+        } catch (Exception e) {
+            log.debug("Redis không khả dụng khi ghi principal: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    private static String encode(UserPrincipal principal) {
+        return principal.getId() + SEPARATOR + principal.getRole().name() + SEPARATOR + principal.getStatus().name();
+    }
+
+    private static UserPrincipal decode(String email, String value) {
+        int first = value.indexOf(SEPARATOR);
+        int second = value.indexOf(SEPARATOR, first + 1);
+        return new UserPrincipal(
+                Long.valueOf(value.substring(0, first)),
+                email,
+                Role.valueOf(value.substring(first + 1, second)),
+                Status.valueOf(value.substring(second + 1))
+        );
+    }
+}
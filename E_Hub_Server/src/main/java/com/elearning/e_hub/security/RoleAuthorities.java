@@ -0,0 +1,35 @@
+package com.elearning.e_hub.security;
+
+import com.elearning.e_hub.common.entity.Role;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tập GrantedAuthority bất biến cho từng Role, tạo sẵn một lần để mỗi request không phải cấp phát lại.
+ * SUPER_ADMIN kế thừa quyền ADMIN để các kiểm tra hasRole('ADMIN') vẫn pass.
+ */
+public final class RoleAuthorities {
+
+    private static final Map<Role, Set<GrantedAuthority>> AUTHORITIES = new EnumMap<>(Role.class);
+
+    static {
+        GrantedAuthority user = new SimpleGrantedAuthority("ROLE_USER");
+        GrantedAuthority admin = new SimpleGrantedAuthority("ROLE_ADMIN");
+        GrantedAuthority superAdmin = new SimpleGrantedAuthority("ROLE_SUPER_ADMIN");
+
+        AUTHORITIES.put(Role.USER, Set.of(user));
+        AUTHORITIES.put(Role.ADMIN, Set.of(user, admin));
+        AUTHORITIES.put(Role.SUPER_ADMIN, Set.of(user, admin, superAdmin));
+    }
+
+    private RoleAuthorities() {
+    }
+
+    public static Set<GrantedAuthority> of(Role role) {
+        return role != null ? AUTHORITIES.get(role) : Set.of();
+    }
+}
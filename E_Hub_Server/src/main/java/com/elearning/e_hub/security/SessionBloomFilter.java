@@ -0,0 +1,59 @@
+package com.elearning.e_hub.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter cho sessionId kiểu long. Không cấp phát bộ nhớ khi kiểm tra,
+ * an toàn khi nhiều thread cùng đọc/ghi. Chỉ dùng để loại nhanh các session chắc chắn chưa bị thu hồi.
+ */
+final class SessionBloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitMask;
+    private final int hashCount;
+
+    SessionBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        // Làm tròn lên lũy thừa của 2 để lấy vị trí bit bằng phép AND thay vì phép chia
+        int minWords = (int) Math.min(1 << 29, Math.max(1, (m + 63) >>> 6));
+        int words = Integer.highestOneBit(minWords * 2 - 1);
+        long bitCount = (long) words << 6;
+        this.bits = new AtomicLongArray(words);
+        this.bitMask = bitCount - 1;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    void put(long value) {
+        long h1 = mix(value);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (h1 + i * h2) & bitMask;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = bits.get(word);
+            while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+    }
+
+    boolean mightContain(long value) {
+        long h1 = mix(value);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (h1 + i * h2) & bitMask;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // SplitMix64 finalizer: phân tán tốt cho các id tăng dần
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
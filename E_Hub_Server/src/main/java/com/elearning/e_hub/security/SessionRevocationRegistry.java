@@ -0,0 +1,153 @@
+package com.elearning.e_hub.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Danh sách session đã bị thu hồi (logout, reset mật khẩu) trên mỗi node.
+ * Kiểm tra mỗi request chỉ chạm Bloom filter trong bộ nhớ; tập chính xác chỉ được tra khi Bloom filter báo có.
+ * Các node đồng bộ qua Redis pub/sub, node mới khởi động nạp lại từ snapshot sorted set trong Redis.
+ * Entry chỉ cần sống bằng thời gian sống của access token, sau đó token đã tự hết hạn.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SessionRevocationRegistry implements MessageListener {
+
+    private static final String SNAPSHOT_KEY = "session:revoked";
+    private static final String REVOKE_CHANNEL = "session:revoked";
+    private static final String SEPARATOR = ":";
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Value("${jwt.access-token-ttl}")
+    private long accessTokenTTL;
+
+    @Value("${security.session-revocation.expected-revocations:100000}")
+    private long expectedRevocations;
+
+    // sessionId -> thời điểm (epoch ms) có thể bỏ entry vì access token đã hết hạn
+    private final Map<Long, Long> revoked = new ConcurrentHashMap<>();
+    private volatile SessionBloomFilter bloomFilter;
+
+    @PostConstruct
+    void init() {
+        this.bloomFilter = new SessionBloomFilter(expectedRevocations, FALSE_POSITIVE_RATE);
+        listenerContainer.addMessageListener(this, new ChannelTopic(REVOKE_CHANNEL));
+        loadSnapshot();
+    }
+
+    /**
+     * Kiểm tra O(1), không cấp phát bộ nhớ ở nhánh phổ biến (session chưa bị thu hồi).
+     */
+    public boolean isRevoked(long sessionId) {
+        return bloomFilter.mightContain(sessionId) && revoked.containsKey(sessionId);
+    }
+
+    public void revoke(Long sessionId) {
+        if (sessionId != null) {
+            revokeAll(List.of(sessionId));
+        }
+    }
+
+    /**
+     * Thu hồi các session trên mọi node. Nếu đang trong transaction thì chỉ phát sau khi commit.
+     */
+    public void revokeAll(Collection<Long> sessionIds) {
+        if (sessionIds.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(sessionIds);
+                }
+            });
+        } else {
+            publish(sessionIds);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(SEPARATOR);
+        addLocal(Long.parseLong(body.substring(0, separator)), Long.parseLong(body.substring(separator + 1)));
+    }
+
+    /**
+     * Dọn các entry đã hết hạn ở local và trong snapshot Redis, rồi dựng lại Bloom filter
+     * (Bloom filter không hỗ trợ xóa phần tử).
+     */
+    @Scheduled(fixedDelayString = "${security.session-revocation.compaction-interval:60000}")
+    public void compact() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expireAt -> expireAt <= now);
+
+        SessionBloomFilter rebuilt = new SessionBloomFilter(
+                Math.max(expectedRevocations, revoked.size() * 2L), FALSE_POSITIVE_RATE);
+        revoked.keySet().forEach(rebuilt::put);
+        // Entry thêm vào trong lúc dựng lại sẽ được put vào cả filter mới
+        this.bloomFilter = rebuilt;
+        revoked.keySet().forEach(rebuilt::put);
+
+        try {
+            redisTemplate.opsForZSet().removeRangeByScore(SNAPSHOT_KEY, Double.NEGATIVE_INFINITY, now);
+        } catch (Exception e) {
+            log.debug("Không thể compact snapshot session thu hồi: {}", e.getMessage());
+        }
+    }
+
+    private void publish(Collection<Long> sessionIds) {
+        long expireAt = System.currentTimeMillis() + accessTokenTTL;
+        for (Long sessionId : sessionIds) {
+            addLocal(sessionId, expireAt);
+            try {
+                redisTemplate.opsForZSet().add(SNAPSHOT_KEY, sessionId.toString(), expireAt);
+                redisTemplate.convertAndSend(REVOKE_CHANNEL, sessionId + SEPARATOR + expireAt);
+            } catch (Exception e) {
+                log.warn("Không thể phát thu hồi session {}: {}", sessionId, e.getMessage());
+            }
+        }
+    }
+
+    private void addLocal(long sessionId, long expireAt) {
+        revoked.put(sessionId, expireAt);
+        bloomFilter.put(sessionId);
+    }
+
+    private void loadSnapshot() {
+        try {
+            Set<ZSetOperations.TypedTuple<String>> entries = redisTemplate.opsForZSet()
+                    .rangeByScoreWithScores(SNAPSHOT_KEY, System.currentTimeMillis(), Double.POSITIVE_INFINITY);
+            if (entries != null) {
+                entries.forEach(entry -> addLocal(Long.parseLong(entry.getValue()), entry.getScore().longValue()));
+                log.info("Đã nạp {} session bị thu hồi từ snapshot Redis", entries.size());
+            }
+        } catch (Exception e) {
+            log.warn("Không thể nạp snapshot session thu hồi: {}", e.getMessage());
+        }
+    }
+}
@@ -1,22 +1,48 @@
 package com.elearning.e_hub.security;
 
+import com.elearning.e_hub.common.datasource.ReadYourWritesTracker;
+import com.elearning.e_hub.module.user.entity.User;
 import com.elearning.e_hub.module.user.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private ReadYourWritesTracker readYourWrites;
+
+    // Dùng cho xác thực bằng mật khẩu: luôn đọc DB vì cần password hash mới nhất
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         return userRepository.findByEmail(email)
                 .map(CustomUserDetails::new)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
+
+    // DaoAuthenticationProvider gọi sau khi login thành công nếu hash dùng cost khác cost đang cấu hình
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = ((CustomUserDetails) userDetails).getUser();
+        user.setPassword(newPassword);
+        return new CustomUserDetails(userRepository.save(user));
+    }
+
+    // Dùng cho mỗi request có JWT: đọc qua cache hai tầng, không mang theo password hash.
+    // Cache miss đọc primary: principal nạp từ replica trễ có thể là user vừa bị xóa/đổi email
+    public UserPrincipal loadPrincipal(String email) throws UsernameNotFoundException {
+        return principalCache.get(email, key -> readYourWrites.readFromPrimary(() -> userRepository.findByEmail(key))
+                .map(user -> new UserPrincipal(user.getId(), user.getEmail(), user.getRole(), user.getStatus()))
+                .orElseThrow(() -> new UsernameNotFoundException("User not found")));
+    }
 }
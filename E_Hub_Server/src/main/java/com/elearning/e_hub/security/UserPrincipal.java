@@ -0,0 +1,58 @@
+package com.elearning.e_hub.security;
+
+import com.elearning.e_hub.common.entity.Role;
+import com.elearning.e_hub.common.entity.Status;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+
+/**
+ * Principal gọn nhẹ dựng trực tiếp từ claims của access token đã verify.
+ * Không giữ password hash hay entity User nên không cần truy vấn DB cho mỗi request.
+ */
+@Getter
+@RequiredArgsConstructor
+public class UserPrincipal implements UserDetails {
+    private final Long id;
+    private final String email;
+    private final Role role;
+    private final Status status;
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return RoleAuthorities.of(role);
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return status != Status.SUSPENDED;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return status == Status.ACTIVE;
+    }
+}
@@ -0,0 +1,27 @@
+-- Bảng users và sequence cấp id (pooled-lo, allocationSize = 50 như @SequenceGenerator của User)
+-- Index tìm kiếm trên search_text (GIN trigram, text_pattern_ops) phụ thuộc Postgres/pg_trgm
+-- nên do UserSearchIndexInitializer tạo lúc khởi động, không nằm trong migration.
+
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE users (
+    id            BIGINT       NOT NULL,
+    full_name     VARCHAR(255) NOT NULL,
+    email         VARCHAR(255) NOT NULL,
+    password      VARCHAR(255) NOT NULL,
+    role          VARCHAR(255) NOT NULL,
+    status        VARCHAR(255) NOT NULL,
+    last_login_at TIMESTAMP(6),
+    avatar_url    VARCHAR(255),
+    bio           TEXT,
+    search_text   VARCHAR(400),
+    created_at    TIMESTAMP(6),
+    updated_at    TIMESTAMP(6),
+    CONSTRAINT pk_users PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT ck_users_role CHECK (role IN ('USER', 'ADMIN', 'SUPER_ADMIN')),
+    CONSTRAINT ck_users_status CHECK (status IN ('ACTIVE', 'SUSPENDED', 'DELETED'))
+);
+
+-- Khóa seek cho phân trang cursor theo created_at; id là tie-breaker
+CREATE INDEX idx_users_created_at_id ON users (created_at, id);
@@ -0,0 +1,19 @@
+-- Session đăng nhập; id lấy từ sequence pooled để Hibernate gom batch các INSERT
+
+CREATE SEQUENCE sessions_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE sessions (
+    id        BIGINT  NOT NULL,
+    user_id   BIGINT  NOT NULL,
+    token     VARCHAR(512),
+    expire_at TIMESTAMP(6),
+    is_active BOOLEAN,
+    CONSTRAINT pk_sessions PRIMARY KEY (id),
+    CONSTRAINT uk_sessions_token UNIQUE (token),
+    CONSTRAINT fk_sessions_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE INDEX idx_sessions_user_active ON sessions (user_id, is_active);
+CREATE INDEX idx_sessions_expire_at ON sessions (expire_at);
+-- SessionReaper dọn theo lô: session không active hoặc đã hết hạn
+CREATE INDEX idx_sessions_active_expire_at ON sessions (is_active, expire_at);
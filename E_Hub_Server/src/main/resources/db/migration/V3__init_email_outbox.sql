@@ -0,0 +1,20 @@
+-- Outbox email, ghi cùng transaction nghiệp vụ và được EmailOutboxDispatcher gửi ở background
+
+CREATE TABLE email_outbox (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    recipient       VARCHAR(255)  NOT NULL,
+    template        VARCHAR(50)   NOT NULL,
+    payload         VARCHAR(512),
+    status          VARCHAR(20)   NOT NULL,
+    attempts        INTEGER       NOT NULL,
+    next_attempt_at TIMESTAMP(6)  NOT NULL,
+    last_error      VARCHAR(1000),
+    created_at      TIMESTAMP(6)  NOT NULL,
+    sent_at         TIMESTAMP(6),
+    CONSTRAINT pk_email_outbox PRIMARY KEY (id),
+    CONSTRAINT ck_email_outbox_template CHECK (template IN ('PASSWORD_RESET')),
+    CONSTRAINT ck_email_outbox_status CHECK (status IN ('PENDING', 'SENT', 'DEAD'))
+);
+
+-- Dispatcher lấy lô PENDING đến hạn
+CREATE INDEX idx_email_outbox_status_next_attempt ON email_outbox (status, next_attempt_at);
@@ -0,0 +1,9 @@
+-- Login ghi thời điểm đăng nhập lên dòng session thay cho UPDATE users.last_login_at;
+-- SessionReaper đồng bộ sang users.last_login_at theo lô
+ALTER TABLE sessions ADD COLUMN IF NOT EXISTS login_at TIMESTAMP(6);
+CREATE INDEX IF NOT EXISTS idx_sessions_login_at ON sessions (login_at);
+
+-- id do DB cấp ngay trong INSERT (IDENTITY phía Hibernate), bỏ round-trip nextval riêng.
+-- Giữ bước 50 của sequence: không trùng các block id mà node bản cũ đã cấp phát trong lúc rolling deploy.
+-- DB cũ do ddl-auto tạo (id identity, không có sessions_seq) đã được callback afterBaseline đưa về dạng V2
+ALTER TABLE sessions ALTER COLUMN id SET DEFAULT nextval('sessions_seq');
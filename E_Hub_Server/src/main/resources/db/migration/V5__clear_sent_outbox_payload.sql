@@ -0,0 +1,2 @@
+-- Payload (reset token) chỉ cần tới khi gửi xong: xóa khỏi các email đã gửi hoặc đã bỏ trước đây
+UPDATE email_outbox SET payload = NULL WHERE status IN ('SENT', 'DEAD') AND payload IS NOT NULL;
@@ -0,0 +1,6 @@
+-- Dòng tạo trước khi bật JPA auditing không có created_at: cursor theo created_at không mã hóa được giá trị NULL
+-- và điều kiện seek (created_at, id) bỏ sót các dòng này. Lấy mốc gần nhất đã biết, không có thì thời điểm migrate
+UPDATE users SET created_at = COALESCE(updated_at, last_login_at, CURRENT_TIMESTAMP) WHERE created_at IS NULL;
+
+-- Auditing và import hàng loạt luôn ghi created_at
+ALTER TABLE users ALTER COLUMN created_at SET NOT NULL;
@@ -0,0 +1,63 @@
+-- Chạy một lần khi Flyway ghi baseline V3 lên DB có sẵn do ddl-auto tạo (baseline-on-migrate ở profile prod),
+-- đưa schema về đúng dạng V1-V3 trước khi chạy V4 trở đi.
+-- Schema cũ: users.id và sessions.id là cột identity, không có users_seq, sessions_seq, search_text,
+-- index seek theo created_at, email_outbox.
+-- Mọi lệnh idempotent: DB đã đúng dạng đi qua không đổi gì.
+-- Chỉ chạy trên Postgres (DB có sẵn ở production); DB trống (H2 khi test) không bao giờ ghi baseline.
+
+-- users: id cấp từ users_seq (pooled-lo, bước 50) thay cho identity.
+-- Sequence chỉ được đẩy lên quá id lớn nhất hiện có, không bao giờ lùi lại
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+SELECT setval('users_seq', GREATEST(
+    (SELECT last_value FROM users_seq),
+    (SELECT COALESCE(max(id), 1) FROM users)));
+
+-- Unique email mang tên do Hibernate sinh (uk_<hash>): đổi về uk_users_email như V1,
+-- signup/import nhận diện email trùng theo tên này
+DO $$
+DECLARE
+    existing TEXT;
+BEGIN
+    SELECT c.conname INTO existing
+    FROM pg_constraint c
+    JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = c.conkey[1]
+    WHERE c.conrelid = 'users'::regclass AND c.contype = 'u'
+      AND array_length(c.conkey, 1) = 1 AND a.attname = 'email'
+    LIMIT 1;
+    IF existing IS NOT NULL AND NOT EXISTS (
+        SELECT 1 FROM pg_constraint WHERE conrelid = 'users'::regclass AND conname = 'uk_users_email') THEN
+        EXECUTE format('ALTER TABLE users RENAME CONSTRAINT %I TO uk_users_email', existing);
+    END IF;
+END $$;
+
+-- Giá trị search_text của các dòng cũ do UserSearchIndexInitializer điền lúc khởi động
+ALTER TABLE users ADD COLUMN IF NOT EXISTS search_text VARCHAR(400);
+CREATE INDEX IF NOT EXISTS idx_users_created_at_id ON users (created_at, id);
+
+-- sessions: ddl-auto tạo id identity, V2 dùng sessions_seq (V4 gắn làm default của cột id)
+CREATE SEQUENCE IF NOT EXISTS sessions_seq START WITH 1 INCREMENT BY 50;
+ALTER TABLE sessions ALTER COLUMN id DROP IDENTITY IF EXISTS;
+SELECT setval('sessions_seq', GREATEST(
+    (SELECT last_value FROM sessions_seq),
+    (SELECT COALESCE(max(id), 1) FROM sessions)));
+CREATE INDEX IF NOT EXISTS idx_sessions_user_active ON sessions (user_id, is_active);
+CREATE INDEX IF NOT EXISTS idx_sessions_expire_at ON sessions (expire_at);
+CREATE INDEX IF NOT EXISTS idx_sessions_active_expire_at ON sessions (is_active, expire_at);
+
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    recipient       VARCHAR(255)  NOT NULL,
+    template        VARCHAR(50)   NOT NULL,
+    payload         VARCHAR(512),
+    status          VARCHAR(20)   NOT NULL,
+    attempts        INTEGER       NOT NULL,
+    next_attempt_at TIMESTAMP(6)  NOT NULL,
+    last_error      VARCHAR(1000),
+    created_at      TIMESTAMP(6)  NOT NULL,
+    sent_at         TIMESTAMP(6),
+    CONSTRAINT pk_email_outbox PRIMARY KEY (id),
+    CONSTRAINT ck_email_outbox_template CHECK (template IN ('PASSWORD_RESET')),
+    CONSTRAINT ck_email_outbox_status CHECK (status IN ('PENDING', 'SENT', 'DEAD'))
+);
+CREATE INDEX IF NOT EXISTS idx_email_outbox_status_next_attempt ON email_outbox (status, next_attempt_at);
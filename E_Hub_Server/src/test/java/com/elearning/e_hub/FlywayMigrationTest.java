@@ -0,0 +1,133 @@
+package com.elearning.e_hub;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Migration Flyway trên Postgres thật: DB mới chạy V1 trở đi, DB cũ do ddl-auto tạo được baseline ở V3
+ * (cấu hình profile prod) rồi nâng lên cùng schema.
+ */
+class FlywayMigrationTest {
+
+    private static final String LATEST_VERSION = "6";
+
+    // Schema do ddl-auto của bản trước khi có Flyway tạo: id identity, chưa có sequence, search_text, email_outbox
+    private static final String DDL_AUTO_SCHEMA = """
+        CREATE TABLE users (
+            id bigint GENERATED BY DEFAULT AS IDENTITY,
+            avatar_url varchar(255),
+            bio text,
+            created_at timestamp(6),
+            email varchar(255) NOT NULL,
+            full_name varchar(255) NOT NULL,
+            last_login_at timestamp(6),
+            password varchar(255) NOT NULL,
+            role varchar(255) NOT NULL CHECK (role IN ('USER', 'ADMIN', 'SUPER_ADMIN')),
+            status varchar(255) NOT NULL CHECK (status IN ('ACTIVE', 'SUSPENDED', 'DELETED')),
+            updated_at timestamp(6),
+            PRIMARY KEY (id)
+        );
+        CREATE TABLE sessions (
+            id bigint GENERATED BY DEFAULT AS IDENTITY,
+            expire_at timestamp(6),
+            is_active boolean,
+            token varchar(512),
+            user_id bigint NOT NULL,
+            PRIMARY KEY (id)
+        );
+        ALTER TABLE users ADD CONSTRAINT uk_6dotkott2kjsp8vw4d0m25fb7 UNIQUE (email);
+        ALTER TABLE sessions ADD CONSTRAINT uk_c0dugj7pp1nbcggrs9xyfpnfm UNIQUE (token);
+        ALTER TABLE sessions ADD CONSTRAINT fk_sessions_user_legacy FOREIGN KEY (user_id) REFERENCES users;
+        """;
+
+    private static EmbeddedPostgres postgres;
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        postgres = EmbeddedPostgres.start();
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void freshDatabaseMigratesFromV1() {
+        DataSource dataSource = createDatabase("fresh");
+
+        Flyway flyway = flyway(dataSource);
+        flyway.migrate();
+
+        assertThat(flyway.info().current().getVersion().getVersion()).isEqualTo(LATEST_VERSION);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        long userId = insertUser(jdbc, "fresh@ehub.vn");
+        jdbc.update("INSERT INTO sessions (user_id, is_active) VALUES (?, true)", userId);
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM sessions", Long.class)).isEqualTo(1);
+    }
+
+    @Test
+    void ddlAutoDatabaseIsUpgradedAtBaseline() {
+        DataSource dataSource = createDatabase("ddl_auto");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute(DDL_AUTO_SCHEMA);
+        for (int i = 1; i <= 3; i++) {
+            jdbc.update("INSERT INTO users (email, full_name, password, role, status) "
+                + "VALUES (?, 'Legacy', 'x', 'USER', 'ACTIVE')", "legacy" + i + "@ehub.vn");
+        }
+        jdbc.update("INSERT INTO sessions (user_id, is_active) VALUES (3, true)");
+
+        Flyway flyway = flyway(dataSource);
+        flyway.migrate();
+
+        assertThat(flyway.info().current().getVersion().getVersion()).isEqualTo(LATEST_VERSION);
+        // users_seq tiếp tục sau id lớn nhất hiện có: user mới không đụng khóa chính của user cũ
+        assertThat(insertUser(jdbc, "upgraded@ehub.vn")).isGreaterThan(3);
+        assertThat(jdbc.queryForObject(
+            "SELECT is_identity FROM information_schema.columns WHERE table_name = 'users' AND column_name = 'id'",
+            String.class)).isEqualTo("NO");
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM users WHERE search_text IS NULL", Long.class))
+            .isEqualTo(4);
+        assertThat(jdbc.queryForObject(
+            "SELECT count(*) FROM pg_constraint WHERE conrelid = 'users'::regclass AND conname = 'uk_users_email'",
+            Long.class)).isEqualTo(1);
+        // Dòng cũ không có created_at được điền để phân trang cursor theo created_at không bỏ sót
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM users WHERE created_at IS NULL", Long.class)).isZero();
+        // sessions.id chuyển sang default từ sessions_seq (V4), tiếp tục sau session cũ
+        jdbc.update("INSERT INTO sessions (user_id, is_active, login_at) VALUES (1, true, now())");
+        assertThat(jdbc.queryForObject("SELECT max(id) FROM sessions", Long.class)).isGreaterThan(1);
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM email_outbox", Long.class)).isZero();
+    }
+
+    private DataSource createDatabase(String name) {
+        new JdbcTemplate(postgres.getPostgresDatabase()).execute("CREATE DATABASE " + name);
+        return postgres.getDatabase("postgres", name);
+    }
+
+    // Cùng cấu hình Flyway với profile prod (application.yml)
+    private static Flyway flyway(DataSource dataSource) {
+        return Flyway.configure()
+            .dataSource(dataSource)
+            .locations("classpath:db/migration")
+            .baselineOnMigrate(true)
+            .baselineVersion("3")
+            .load();
+    }
+
+    // Cấp id giống Hibernate pooled-lo: giá trị nextval là id đầu tiên của block
+    private static long insertUser(JdbcTemplate jdbc, String email) {
+        long id = jdbc.queryForObject("SELECT nextval('users_seq')", Long.class);
+        jdbc.update("INSERT INTO users (id, email, full_name, password, role, status, created_at) "
+            + "VALUES (?, ?, 'Migrated', 'x', 'USER', 'ACTIVE', now())", id, email);
+        return id;
+    }
+}
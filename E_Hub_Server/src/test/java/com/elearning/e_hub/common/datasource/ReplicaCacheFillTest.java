@@ -0,0 +1,123 @@
+package com.elearning.e_hub.common.datasource;
+
+import com.elearning.e_hub.common.exception.AppException;
+import com.elearning.e_hub.module.auth.dto.SignupRequest;
+import com.elearning.e_hub.module.auth.service.AuthService;
+import com.elearning.e_hub.module.user.dto.UpdateUserRequest;
+import com.elearning.e_hub.module.user.repository.UserRepository;
+import com.elearning.e_hub.module.user.service.UserService;
+import com.elearning.e_hub.security.UserDetailsServiceImpl;
+import com.elearning.e_hub.support.IntegrationTestSupport;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Hai database H2: primary của ứng dụng và một "replica" tạo bằng Flyway, chỉ nhận dữ liệu khi test sao chép sang,
+ * nên luôn trễ so với primary. Transaction readOnly thường đọc replica; lần nạp cache phải đọc primary.
+ */
+@TestPropertySource(properties = {
+        "spring.datasource.url=" + ReplicaCacheFillTest.PRIMARY_URL,
+        "datasource.routing.enabled=true",
+        "datasource.routing.replica-urls=" + ReplicaCacheFillTest.REPLICA_URL,
+        "datasource.routing.max-lag=0"
+})
+class ReplicaCacheFillTest extends IntegrationTestSupport {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:ehub-routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:ehub-routing-replica;DB_CLOSE_DELAY=-1";
+
+    private static final String PASSWORD = "Replica@2024x";
+
+    static {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+    }
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void profileReloadAfterUpdateReadsPrimary() throws SQLException {
+        Long id = signupAndReplicate("replica-update@ehub.vn", "Tên Cũ");
+
+        userService.updateUser(id, new UpdateUserRequest("Tên Mới", null, null, null));
+
+        assertThat(onReplica(() -> userRepository.findDetailById(id).orElseThrow().fullName())).isEqualTo("Tên Cũ");
+        assertThat(userService.getUserById(id).fullName()).isEqualTo("Tên Mới");
+    }
+
+    @Test
+    void deletedUserIsNotReloadedFromReplica() throws SQLException {
+        String email = "replica-delete@ehub.vn";
+        Long id = signupAndReplicate(email, "Sắp Xóa");
+
+        userService.deleteUser(id);
+
+        assertThat(onReplica(() -> userRepository.findByEmail(email))).isPresent();
+        assertThatThrownBy(() -> userDetailsService.loadPrincipal(email)).isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> userService.getUserById(id)).isInstanceOf(AppException.class);
+    }
+
+    // Transaction readOnly không có user đăng nhập: không bị ghim về primary
+    private <T> T onReplica(Supplier<T> read) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> read.get());
+    }
+
+    // Replica "bắt kịp" tới thời điểm này: sao chép dòng user từ primary
+    private Long signupAndReplicate(String email, String fullName) throws SQLException {
+        authService.signup(new SignupRequest(email, PASSWORD, fullName));
+        try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+             Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             PreparedStatement select = primary.prepareStatement("SELECT * FROM users WHERE email = ?")) {
+            select.setString(1, email);
+            try (ResultSet rs = select.executeQuery()) {
+                assertThat(rs.next()).isTrue();
+                ResultSetMetaData meta = rs.getMetaData();
+                List<String> columns = new ArrayList<>();
+                for (int i = 1; i <= meta.getColumnCount(); i++) {
+                    columns.add(meta.getColumnName(i));
+                }
+                String sql = "INSERT INTO users (" + String.join(", ", columns) + ") VALUES ("
+                        + String.join(", ", columns.stream().map(c -> "?").toList()) + ")";
+                try (PreparedStatement insert = replica.prepareStatement(sql)) {
+                    for (int i = 1; i <= columns.size(); i++) {
+                        insert.setObject(i, rs.getObject(i));
+                    }
+                    insert.executeUpdate();
+                }
+                return rs.getLong("id");
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.elearning.e_hub.module.auth.controller;
+
+import com.elearning.e_hub.module.auth.dto.SignupRequest;
+import com.elearning.e_hub.module.auth.service.AuthService;
+import com.elearning.e_hub.support.IntegrationTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Chỉ lần đăng nhập sai bị đếm vào giới hạn (5 lần/email), đăng nhập thành công xóa cửa sổ của email.
+ */
+class LoginThrottleTest extends IntegrationTestSupport {
+
+    private static final String PASSWORD = "Throttle@2024x";
+    private static final int EMAIL_LIMIT = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuthService authService;
+
+    @Test
+    void successfulLoginsAreNeverThrottled() throws Exception {
+        String email = signup("throttle-success@ehub.vn");
+
+        for (int i = 0; i <= EMAIL_LIMIT; i++) {
+            login(email, PASSWORD).andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    void failuresAreThrottledUntilASuccessClearsThem() throws Exception {
+        String email = signup("throttle-failure@ehub.vn");
+
+        for (int i = 0; i < EMAIL_LIMIT - 1; i++) {
+            login(email, "Wrong@2024x").andExpect(status().isUnauthorized());
+        }
+        login(email, PASSWORD).andExpect(status().isOk());
+
+        for (int i = 0; i < EMAIL_LIMIT; i++) {
+            login(email, "Wrong@2024x").andExpect(status().isUnauthorized());
+        }
+        login(email, PASSWORD).andExpect(status().isTooManyRequests());
+    }
+
+    private String signup(String email) {
+        authService.signup(new SignupRequest(email, PASSWORD, "Throttle Test"));
+        return email;
+    }
+
+    private ResultActions login(String email, String password) throws Exception {
+        return mockMvc.perform(post("/api/v1/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}"));
+    }
+}
@@ -0,0 +1,98 @@
+package com.elearning.e_hub.module.auth.scheduler;
+
+import com.elearning.e_hub.module.auth.entity.EmailOutbox;
+import com.elearning.e_hub.module.auth.entity.EmailTemplate;
+import com.elearning.e_hub.module.auth.repository.EmailOutboxRepository;
+import com.elearning.e_hub.module.auth.service.EmailService;
+import com.elearning.e_hub.support.IntegrationTestSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Outbox: lô được nhận và commit trước khi gửi SMTP, payload bị xóa sau khi gửi, email đã xong được dọn.
+ */
+class EmailOutboxDispatcherTest extends IntegrationTestSupport {
+
+    // Thay đúng bean JavaMailSenderImpl (mail health contributor cũng cần kiểu này)
+    @MockBean
+    private JavaMailSenderImpl mailSender;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private EmailOutboxDispatcher emailOutboxDispatcher;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @BeforeEach
+    void clearOutbox() {
+        emailOutboxRepository.deleteAll();
+    }
+
+    @Test
+    void claimIsCommittedBeforeSendingAndPayloadIsClearedAfterwards() {
+        Long id = pending("claim@ehub.vn").getId();
+        AtomicReference<EmailOutbox> duringSend = new AtomicReference<>();
+        AtomicReference<Integer> dispatchedDuringSend = new AtomicReference<>();
+        doAnswer(invocation -> {
+            // Đọc ngoài transaction: chỉ thấy dữ liệu đã commit
+            duringSend.set(emailOutboxRepository.findById(id).orElseThrow());
+            dispatchedDuringSend.set(emailService.dispatchPending(10));
+            return null;
+        }).when(mailSender).send(any(SimpleMailMessage[].class));
+
+        assertThat(emailService.dispatchPending(10)).isEqualTo(1);
+
+        assertThat(duringSend.get().getStatus()).isEqualTo(EmailOutbox.Status.PENDING);
+        assertThat(duringSend.get().getNextAttemptAt()).isAfter(LocalDateTime.now());
+        // Lô đang gửi không bị nhận lại
+        assertThat(dispatchedDuringSend.get()).isZero();
+
+        EmailOutbox sent = emailOutboxRepository.findById(id).orElseThrow();
+        assertThat(sent.getStatus()).isEqualTo(EmailOutbox.Status.SENT);
+        assertThat(sent.getPayload()).isNull();
+    }
+
+    @Test
+    void purgeDeletesFinishedEmailsOlderThanRetentionOnly() {
+        LocalDateTime old = LocalDateTime.now().minusDays(30);
+        outbox("old-sent@ehub.vn", EmailOutbox.Status.SENT, old);
+        outbox("recent-sent@ehub.vn", EmailOutbox.Status.SENT, LocalDateTime.now());
+        outbox("old-dead@ehub.vn", EmailOutbox.Status.DEAD, old);
+        outbox("old-pending@ehub.vn", EmailOutbox.Status.PENDING, old);
+
+        emailOutboxDispatcher.purge();
+
+        assertThat(emailOutboxRepository.findAll())
+                .extracting(EmailOutbox::getRecipient)
+                .containsExactlyInAnyOrder("recent-sent@ehub.vn", "old-pending@ehub.vn");
+    }
+
+    private EmailOutbox pending(String recipient) {
+        return outbox(recipient, EmailOutbox.Status.PENDING, LocalDateTime.now());
+    }
+
+    private EmailOutbox outbox(String recipient, EmailOutbox.Status status, LocalDateTime createdAt) {
+        EmailOutbox outbox = new EmailOutbox();
+        outbox.setRecipient(recipient);
+        outbox.setTemplate(EmailTemplate.PASSWORD_RESET);
+        outbox.setPayload("reset-token");
+        outbox.setStatus(status);
+        outbox.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        outbox.setCreatedAt(createdAt);
+        return emailOutboxRepository.save(outbox);
+    }
+}
@@ -0,0 +1,64 @@
+package com.elearning.e_hub.module.auth.service;
+
+import com.elearning.e_hub.common.metrics.SqlStatementCounter;
+import com.elearning.e_hub.module.auth.dto.LoginRequest;
+import com.elearning.e_hub.module.auth.dto.SignupRequest;
+import com.elearning.e_hub.module.auth.dto.TokenResponse;
+import com.elearning.e_hub.module.auth.repository.SessionRepository;
+import com.elearning.e_hub.module.auth.scheduler.SessionReaper;
+import com.elearning.e_hub.module.user.entity.User;
+import com.elearning.e_hub.module.user.repository.UserRepository;
+import com.elearning.e_hub.support.IntegrationTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ngân sách câu SQL của login: SELECT user + INSERT session, last_login_at do SessionReaper đồng bộ.
+ */
+class LoginStatementCountTest extends IntegrationTestSupport {
+
+    private static final String PASSWORD = "Login@2024x";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private SessionReaper sessionReaper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Test
+    void loginRunsAtMostTwoStatements() {
+        String email = "login-count@ehub.vn";
+        authService.signup(new SignupRequest(email, PASSWORD, "Login Count"));
+
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            authService.login(new LoginRequest(email, PASSWORD));
+            assertThat(scope.count()).isBetween(1, 2);
+        }
+    }
+
+    @Test
+    void sessionReaperCopiesLoginTimeToUserBeforePurgingLoggedOutSessions() {
+        String email = "login-sync@ehub.vn";
+        authService.signup(new SignupRequest(email, PASSWORD, "Login Sync"));
+        TokenResponse login = authService.login(new LoginRequest(email, PASSWORD));
+        authService.logout(login.accessToken());
+        Long userId = userRepository.findByEmail(email).orElseThrow().getId();
+        assertThat(userRepository.findById(userId).map(User::getLastLoginAt)).isEmpty();
+
+        sessionReaper.purge();
+
+        assertThat(userRepository.findById(userId).map(User::getLastLoginAt)).isPresent();
+        // Session đã logout bị xóa, session của signup vẫn còn
+        assertThat(sessionRepository.findActiveSessionIdsByUserId(userId)).hasSize(1);
+        assertThat(sessionRepository.count()).isEqualTo(sessionRepository.findAll().stream()
+                .filter(session -> Boolean.TRUE.equals(session.getIsActive())).count());
+    }
+}
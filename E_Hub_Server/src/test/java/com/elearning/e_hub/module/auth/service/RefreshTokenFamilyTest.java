@@ -0,0 +1,97 @@
+package com.elearning.e_hub.module.auth.service;
+
+import com.elearning.e_hub.common.exception.AppException;
+import com.elearning.e_hub.module.auth.dto.SignupRequest;
+import com.elearning.e_hub.module.auth.dto.TokenResponse;
+import com.elearning.e_hub.module.user.dto.UpdateUserRequest;
+import com.elearning.e_hub.module.user.repository.UserRepository;
+import com.elearning.e_hub.module.user.service.UserService;
+import com.elearning.e_hub.support.IntegrationTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Refresh token family hết hạn cùng session và bị thu hồi khi user bị xóa, đổi mật khẩu hoặc đổi email.
+ */
+class RefreshTokenFamilyTest extends IntegrationTestSupport {
+
+    private static final String PASSWORD = "Family@2024x";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void rotationDoesNotExtendFamilyExpiry() throws Exception {
+        TokenResponse tokens = signup("family-expiry@ehub.vn");
+        String key = "session:refresh:" + jwtService.verifyToken(tokens.refreshToken()).sessionId();
+        long before = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+        assertThat(before).isPositive().isLessThanOrEqualTo(jwtService.getRefreshTokenTTL());
+
+        Thread.sleep(50);
+        authService.refreshToken(tokens.refreshToken());
+
+        assertThat(redisTemplate.getExpire(key, TimeUnit.MILLISECONDS)).isPositive().isLessThan(before);
+    }
+
+    @Test
+    void deletedUserCanNeitherRefreshNorUseAccessToken() throws Exception {
+        TokenResponse tokens = signup("family-delete@ehub.vn");
+
+        userService.deleteUser(userId("family-delete@ehub.vn"));
+
+        assertThatThrownBy(() -> authService.refreshToken(tokens.refreshToken())).isInstanceOf(AppException.class);
+        mockMvc.perform(get("/api/v1/users/me").header("Authorization", "Bearer " + tokens.accessToken()))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void passwordChangeRevokesRefreshTokens() {
+        TokenResponse tokens = signup("family-password@ehub.vn");
+
+        userService.updatePassword(userId("family-password@ehub.vn"), PASSWORD, "Changed@2024x");
+
+        assertThatThrownBy(() -> authService.refreshToken(tokens.refreshToken())).isInstanceOf(AppException.class);
+    }
+
+    @Test
+    void emailChangeRevokesRefreshTokens() {
+        TokenResponse tokens = signup("family-email@ehub.vn");
+
+        userService.updateUser(userId("family-email@ehub.vn"),
+                new UpdateUserRequest("Family Email", null, null, "family-email-new@ehub.vn"));
+
+        assertThatThrownBy(() -> authService.refreshToken(tokens.refreshToken())).isInstanceOf(AppException.class);
+    }
+
+    private TokenResponse signup(String email) {
+        return authService.signup(new SignupRequest(email, PASSWORD, "Family Test"));
+    }
+
+    private Long userId(String email) {
+        return userRepository.findByEmail(email).orElseThrow().getId();
+    }
+}
@@ -0,0 +1,62 @@
+package com.elearning.e_hub.module.auth.service;
+
+import com.elearning.e_hub.common.exception.AppException;
+import com.elearning.e_hub.common.exception.ErrorCode;
+import com.elearning.e_hub.common.util.ConstraintViolations;
+import com.elearning.e_hub.module.auth.dto.SignupRequest;
+import com.elearning.e_hub.module.user.entity.User;
+import com.elearning.e_hub.module.user.repository.UserRepository;
+import com.elearning.e_hub.support.IntegrationTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+/**
+ * Chỉ vi phạm unique email mới được báo là email đã tồn tại; vi phạm ràng buộc khác được ném lại nguyên vẹn.
+ */
+class SignupEmailTakenTest extends IntegrationTestSupport {
+
+    private static final String PASSWORD = "Signup@2024x";
+    private static final String INSERT_SQL =
+        "INSERT INTO users (id, full_name, email, password, role, status, created_at) "
+            + "VALUES (?, 'Signup Test', ?, 'x', 'USER', 'ACTIVE', CURRENT_TIMESTAMP)";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void duplicateEmailIsReportedAsTaken() {
+        authService.signup(new SignupRequest("signup-taken@ehub.vn", PASSWORD, "Signup Test"));
+
+        assertThatThrownBy(() -> authService.signup(new SignupRequest("signup-taken@ehub.vn", PASSWORD, "Signup Test")))
+            .isInstanceOfSatisfying(AppException.class,
+                e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.EMAIL_ALREADY_EXISTS));
+    }
+
+    @Test
+    void onlyTheEmailConstraintIsRecognised() {
+        authService.signup(new SignupRequest("signup-existing@ehub.vn", PASSWORD, "Signup Test"));
+        Long existingId = userRepository.findByEmail("signup-existing@ehub.vn").orElseThrow().getId();
+
+        DataIntegrityViolationException duplicateEmail = catchThrowableOfType(
+            () -> jdbcTemplate.update(INSERT_SQL, existingId + 1_000_000, "signup-existing@ehub.vn"),
+            DataIntegrityViolationException.class);
+        DataIntegrityViolationException duplicateId = catchThrowableOfType(
+            () -> jdbcTemplate.update(INSERT_SQL, existingId, "signup-other@ehub.vn"),
+            DataIntegrityViolationException.class);
+
+        assertThat(ConstraintViolations.violates(duplicateEmail, User.EMAIL_UNIQUE_CONSTRAINT)).isTrue();
+        assertThat(ConstraintViolations.violates(duplicateId, User.EMAIL_UNIQUE_CONSTRAINT)).isFalse();
+    }
+}
@@ -0,0 +1,55 @@
+package com.elearning.e_hub.module.user.service;
+
+import com.elearning.e_hub.module.auth.dto.SignupRequest;
+import com.elearning.e_hub.module.auth.service.AuthService;
+import com.elearning.e_hub.module.user.dto.UserDto;
+import com.elearning.e_hub.support.IntegrationTestSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Từ khóa ngắn khớp đầu từng từ của họ tên và email, không chỉ đầu chuỗi search_text.
+ */
+class UserSearchTest extends IntegrationTestSupport {
+
+    private static final String PASSWORD = "Search@2024x";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserService userService;
+
+    @BeforeEach
+    void seed() {
+        if (search("qx").isEmpty()) {
+            authService.signup(new SignupRequest("qxtran@ehub.vn", PASSWORD, "Nguyễn Đức Qxuân"));
+            authService.signup(new SignupRequest("lebinh@ehub.vn", PASSWORD, "Lê Văn Bình"));
+        }
+    }
+
+    @Test
+    void shortQueryMatchesStartOfAnyWord() {
+        // Đầu họ tên, tên đệm (bỏ dấu), tên và email
+        assertThat(search("ng")).contains("qxtran@ehub.vn");
+        assertThat(search("du")).contains("qxtran@ehub.vn");
+        assertThat(search("bi")).contains("lebinh@ehub.vn");
+        assertThat(search("le")).contains("lebinh@ehub.vn");
+        assertThat(search("qx")).containsExactly("qxtran@ehub.vn");
+    }
+
+    @Test
+    void shortQueryDoesNotMatchInsideWords() {
+        assertThat(search("uy")).doesNotContain("qxtran@ehub.vn");
+        assertThat(search("nh")).doesNotContain("lebinh@ehub.vn");
+    }
+
+    private List<String> search(String q) {
+        return userService.searchUsers(q, true, null, 50).content().stream().map(UserDto::email).toList();
+    }
+}
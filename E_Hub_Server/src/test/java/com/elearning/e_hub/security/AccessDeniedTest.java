@@ -0,0 +1,58 @@
+package com.elearning.e_hub.security;
+
+import com.elearning.e_hub.module.auth.dto.SignupRequest;
+import com.elearning.e_hub.module.auth.service.AuthService;
+import com.elearning.e_hub.support.IntegrationTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * User thường gọi endpoint admin nhận 403 kèm body lỗi chuẩn, không phải 500.
+ */
+class AccessDeniedTest extends IntegrationTestSupport {
+
+    private static final String ACCESS_DENIED_MESSAGE = "Bạn không có quyền thực hiện thao tác này";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private JwtAccessDeniedHandler accessDeniedHandler;
+
+    @Test
+    void preAuthorizeDenialReturnsForbidden() throws Exception {
+        String accessToken = authService.signup(
+                new SignupRequest("not-admin@ehub.vn", "NotAdmin@2024", "Not Admin")).accessToken();
+
+        mockMvc.perform(get("/api/v1/users").param("page", "0").param("size", "20")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.result").value("ERROR"))
+                .andExpect(jsonPath("$.message").value(ACCESS_DENIED_MESSAGE));
+    }
+
+    @Test
+    void filterChainDenialReturnsSameBody() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/users");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        accessDeniedHandler.handle(request, response, new AccessDeniedException("Access Denied"));
+
+        assertThat(response.getStatus()).isEqualTo(403);
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8)).contains(ACCESS_DENIED_MESSAGE);
+    }
+}
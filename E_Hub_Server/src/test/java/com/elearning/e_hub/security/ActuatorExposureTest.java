@@ -0,0 +1,54 @@
+package com.elearning.e_hub.security;
+
+import com.elearning.e_hub.support.IntegrationTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Actuator chỉ nằm trên cổng management: Prometheus và health không cần token ở đó,
+ * các endpoint actuator khác vẫn cần token, cổng public không phục vụ actuator.
+ */
+// Test mặc định tắt export metrics (Prometheus), bật lại cho lớp này
+@AutoConfigureObservability
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        // Context riêng dùng H2 riêng: không tạo lại schema (và id session) của context dùng chung.
+        // Test không có SMTP: bỏ mail khỏi health để health trả UP
+        properties = {
+            "spring.datasource.url=jdbc:h2:mem:ehub-actuator-test;DB_CLOSE_DELAY=-1",
+            "management.health.mail.enabled=false"
+        })
+class ActuatorExposureTest extends IntegrationTestSupport {
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int serverPort;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Test
+    void monitoringEndpointsAreOpenOnlyOnManagementPort() throws Exception {
+        assertThat(get(managementPort, "/actuator/prometheus")).isEqualTo(200);
+        assertThat(get(managementPort, "/actuator/health")).isEqualTo(200);
+        assertThat(get(managementPort, "/actuator/metrics")).isEqualTo(401);
+
+        assertThat(get(serverPort, "/actuator/prometheus")).isEqualTo(401);
+        assertThat(get(serverPort, "/actuator/health")).isEqualTo(404);
+    }
+
+    private int get(int port, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,42 @@
+package com.elearning.e_hub.security;
+
+import com.elearning.e_hub.common.entity.Role;
+import com.elearning.e_hub.common.entity.Status;
+import com.elearning.e_hub.support.IntegrationTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lần nạp đã đọc DB trước khi user bị invalidate không được ghi principal cũ trở lại cache.
+ */
+class PrincipalCacheTest extends IntegrationTestSupport {
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Test
+    void loadRacingWithEvictionDoesNotCacheStalePrincipal() {
+        String email = "principal-race@ehub.vn";
+        UserPrincipal stale = new UserPrincipal(1L, email, Role.USER, Status.ACTIVE);
+        UserPrincipal current = new UserPrincipal(1L, email, Role.USER, Status.SUSPENDED);
+
+        // Loader đọc DB xong thì thay đổi commit và evict chạy, trước khi loader ghi cache
+        UserPrincipal loaded = principalCache.get(email, key -> {
+            principalCache.evict(key);
+            return stale;
+        });
+        assertThat(loaded).isSameAs(stale);
+
+        AtomicInteger loads = new AtomicInteger();
+        UserPrincipal reloaded = principalCache.get(email, key -> {
+            loads.incrementAndGet();
+            return current;
+        });
+        assertThat(loads).hasValue(1);
+        assertThat(reloaded.getStatus()).isEqualTo(Status.SUSPENDED);
+    }
+}
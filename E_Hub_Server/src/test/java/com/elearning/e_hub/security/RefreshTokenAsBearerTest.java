@@ -0,0 +1,61 @@
+package com.elearning.e_hub.security;
+
+import com.elearning.e_hub.module.auth.dto.SignupRequest;
+import com.elearning.e_hub.module.auth.dto.TokenResponse;
+import com.elearning.e_hub.module.auth.service.AuthService;
+import com.elearning.e_hub.support.IntegrationTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Refresh token sống lâu hơn entry thu hồi session nên không được dùng làm Bearer token,
+ * kể cả sau khi entry thu hồi đã hết hạn.
+ */
+class RefreshTokenAsBearerTest extends IntegrationTestSupport {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private SessionRevocationRegistry revocationRegistry;
+
+    @Test
+    void refreshTokenIsRejectedAsBearer() throws Exception {
+        TokenResponse tokens = signup("refresh-bearer@ehub.vn");
+
+        mockMvc.perform(get("/api/v1/users/me").header("Authorization", "Bearer " + tokens.accessToken()))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/users/me").header("Authorization", "Bearer " + tokens.refreshToken()))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void refreshTokenStaysRejectedAfterRevocationExpires() throws Exception {
+        TokenResponse tokens = signup("refresh-bearer-logout@ehub.vn");
+
+        // Giả lập đã qua thời gian sống của entry thu hồi: entry hết hạn ngay và bị compact dọn đi
+        long accessTokenTTL = (long) ReflectionTestUtils.getField(revocationRegistry, "accessTokenTTL");
+        ReflectionTestUtils.setField(revocationRegistry, "accessTokenTTL", 0L);
+        try {
+            authService.logout(tokens.accessToken());
+        } finally {
+            ReflectionTestUtils.setField(revocationRegistry, "accessTokenTTL", accessTokenTTL);
+        }
+        revocationRegistry.compact();
+
+        mockMvc.perform(get("/api/v1/users/me").header("Authorization", "Bearer " + tokens.refreshToken()))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private TokenResponse signup(String email) {
+        return authService.signup(new SignupRequest(email, "Bearer@2024x", "Bearer Test"));
+    }
+}
@@ -0,0 +1,55 @@
+package com.elearning.e_hub.support;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+
+/**
+ * Test tích hợp: ứng dụng thật trên H2 (profile test) và một Redis nhúng dùng chung cho cả JVM test.
+ * Mọi lớp con dùng chung một application context (kể cả MockMvc), trừ lớp tự đổi cấu hình (ActuatorExposureTest).
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public abstract class IntegrationTestSupport {
+
+    private static final int REDIS_PORT = freePort();
+
+    static {
+        RedisServer redis;
+        try {
+            redis = new RedisServer(REDIS_PORT);
+            redis.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        RedisServer started = redis;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                started.stop();
+            } catch (IOException ignored) {
+                // JVM đang tắt
+            }
+        }));
+    }
+
+    @DynamicPropertySource
+    static void redisProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.redis.port", () -> REDIS_PORT);
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}